@@ -0,0 +1,74 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.support.annotation.NonNull;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One frame of a bubble chain trailing a moving leader.
+ */
+@State(Scope.Thread)
+public class BubbleChainBenchmark {
+    private static final long FRAME_NANOS = 16_666_667L;
+
+    @Param({"1", "10", "50"})
+    public int bubbles;
+
+    private BubbleChain chain;
+    private PositionSink sink;
+    private long frameTimeNanos;
+    private int frame;
+
+    @Setup
+    public void setUp() {
+        sink = new PositionSink();
+        final List<BubbleMovement> followers = new ArrayList<>();
+        // The first bubble leads, the rest follow.
+        for (int i = 1; i < bubbles; i++) {
+            followers.add(sink);
+        }
+        chain = new BubbleChain(new NoOpFrameSource(), followers);
+    }
+
+    @Benchmark
+    public float chainFrame() {
+        // Keep the leader circling so the chain never settles.
+        frame++;
+        chain.setLeaderX(500 + 300 * (float) Math.cos(frame * 0.05));
+        chain.setLeaderY(900 + 300 * (float) Math.sin(frame * 0.05));
+        frameTimeNanos += FRAME_NANOS;
+        chain.doFrame(frameTimeNanos);
+        return sink.sum;
+    }
+
+    private static final class PositionSink implements BubbleMovement {
+        float sum;
+
+        @Override
+        public void moveX(float x, float velocity) {
+            sum += x;
+        }
+
+        @Override
+        public void moveY(float y, float velocity) {
+            sum += y;
+        }
+    }
+
+    private static final class NoOpFrameSource implements FrameSource {
+        @Override
+        public void postFrameCallback(@NonNull Callback callback) {
+        }
+
+        @Override
+        public void removeFrameCallback(@NonNull Callback callback) {
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package in.arunkumarsampath.bubbly.base;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The per fling velocity corrections applied in {@code BubbleMovementManager}.
+ */
+@State(Scope.Thread)
+public class FlingMathBenchmark {
+    private final float[] velocities = new float[2];
+
+    private float upX = 320;
+
+    @Benchmark
+    public float interpolateVelocities() {
+        velocities[0] = upX > 0 ? 300 : -300;
+        velocities[1] = 150;
+        upX = -upX;
+        MovementTracker.interpolateVelocities(Math.abs(upX), 1080, 6000, velocities);
+        return velocities[0] + velocities[1];
+    }
+}
@@ -0,0 +1,60 @@
+package in.arunkumarsampath.bubbly.base;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Tracks a whole drag gesture and estimates its release velocity, at common touch sample rates.
+ */
+@State(Scope.Thread)
+public class MovementTrackerBenchmark {
+    /**
+     * Length of the simulated drag.
+     */
+    private static final int GESTURE_MILLIS = 300;
+
+    @Param({"60", "120", "240"})
+    public int sampleRateHz;
+
+    private MovementTracker tracker;
+    private float[] xs;
+    private float[] ys;
+    private long[] times;
+    private final float[] velocities = new float[2];
+
+    @Setup
+    public void setUp() {
+        tracker = MovementTracker.obtain();
+        final int samples = sampleRateHz * GESTURE_MILLIS / 1000;
+        xs = new float[samples];
+        ys = new float[samples];
+        times = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            final float t = (float) i / samples;
+            // An accelerating, slightly curved drag towards the bottom right.
+            xs[i] = 100 + 600 * t * t;
+            ys[i] = 400 + 150 * t + 40 * (float) Math.sin(t * Math.PI);
+            times[i] = i * 1000L / sampleRateHz;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        tracker.recycle();
+    }
+
+    @Benchmark
+    public float trackGesture() {
+        tracker.onDown();
+        for (int i = 0; i < xs.length; i++) {
+            tracker.addMovement(xs[i], ys[i], times[i]);
+        }
+        tracker.computeVelocity(velocities);
+        tracker.onUp();
+        return velocities[0] + velocities[1];
+    }
+}
@@ -0,0 +1,66 @@
+package in.arunkumarsampath.bubbly.physics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * One frame of fling or spring stepping for every bubble, both axes. Simulations that finish are
+ * restarted so every frame does the same amount of work.
+ */
+@State(Scope.Thread)
+public class SimulationFrameBenchmark {
+    private static final long FRAME_NANOS = 16_666_667L;
+
+    @Param({"1", "10", "50"})
+    public int bubbles;
+
+    private FlingSimulation[] flings;
+    private SpringSimulation[] springs;
+
+    @Setup
+    public void setUp() {
+        flings = new FlingSimulation[bubbles * 2];
+        springs = new SpringSimulation[bubbles * 2];
+        for (int i = 0; i < flings.length; i++) {
+            flings[i] = new FlingSimulation().setFriction(0.5f).setMinValue(0).setMaxValue(2000);
+            restart(flings[i], i);
+            springs[i] = new SpringSimulation().setStiffness(200f).setDampingRatio(0.5f);
+            restart(springs[i], i);
+        }
+    }
+
+    @Benchmark
+    public float flingFrame() {
+        float sum = 0;
+        for (int i = 0; i < flings.length; i++) {
+            if (flings[i].step(FRAME_NANOS)) {
+                restart(flings[i], i);
+            }
+            sum += flings[i].getValue();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float springFrame() {
+        float sum = 0;
+        for (int i = 0; i < springs.length; i++) {
+            if (springs[i].step(FRAME_NANOS)) {
+                restart(springs[i], i);
+            }
+            sum += springs[i].getValue();
+        }
+        return sum;
+    }
+
+    private static void restart(FlingSimulation fling, int index) {
+        fling.setStartValue(100 + index % 7).setStartVelocity(2500 + 10 * index);
+    }
+
+    private static void restart(SpringSimulation spring, int index) {
+        spring.setFinalPosition(index % 2 == 0 ? 0 : 980).setStartValue(490).setStartVelocity(1000 - 20 * index);
+    }
+}
@@ -0,0 +1,61 @@
+package in.arunkumarsampath.bubbly.view;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the time {@link CircleView} spends drawing a frame in each render mode. Results are
+ * written to logcat under the {@code CircleViewDrawBenchmark} tag.
+ * <p>
+ * Frames are drawn into a software canvas, which is where the cost of re-rasterising the
+ * anti-aliased circle shows up. {@link CircleView#RENDER_MODE_HARDWARE_LAYER} only pays off on a
+ * hardware accelerated window and is not measured here.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CircleViewDrawBenchmark {
+    private static final String TAG = CircleViewDrawBenchmark.class.getSimpleName();
+
+    private static final int SIZE_PX = 192;
+    private static final int WARM_UP_FRAMES = 200;
+    private static final int FRAMES = 2000;
+
+    @Test
+    public void drawTimePerFrame() {
+        final long directNanos = measure(CircleView.RENDER_MODE_DIRECT);
+        final long cachedNanos = measure(CircleView.RENDER_MODE_CACHED_BITMAP);
+
+        Log.i(TAG, String.format("Draw time per frame: direct %d ns, cached bitmap %d ns", directNanos, cachedNanos));
+        assertTrue(directNanos > 0 && cachedNanos > 0);
+    }
+
+    private long measure(@CircleView.RenderMode int renderMode) {
+        final CircleView circleView = new CircleView(InstrumentationRegistry.getTargetContext());
+        circleView.setRenderMode(renderMode);
+        final int spec = View.MeasureSpec.makeMeasureSpec(SIZE_PX, View.MeasureSpec.EXACTLY);
+        circleView.measure(spec, spec);
+        circleView.layout(0, 0, SIZE_PX, SIZE_PX);
+
+        final Bitmap frame = Bitmap.createBitmap(SIZE_PX, SIZE_PX, Bitmap.Config.ARGB_8888);
+        final Canvas canvas = new Canvas(frame);
+        for (int i = 0; i < WARM_UP_FRAMES; i++) {
+            circleView.draw(canvas);
+        }
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < FRAMES; i++) {
+            circleView.draw(canvas);
+        }
+        final long perFrame = (System.nanoTime() - start) / FRAMES;
+        frame.recycle();
+        return perFrame;
+    }
+}
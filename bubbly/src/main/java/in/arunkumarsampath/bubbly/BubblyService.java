@@ -2,12 +2,223 @@ package in.arunkumarsampath.bubbly;
 
 import android.app.Service;
 import android.content.Intent;
+import android.graphics.PixelFormat;
+import android.os.Binder;
+import android.os.Build;
 import android.os.IBinder;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.view.Gravity;
+import android.view.View;
+import android.view.WindowManager;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import in.arunkumarsampath.bubbly.base.BubbleMovementManager;
+import in.arunkumarsampath.bubbly.base.FrameSource;
+import in.arunkumarsampath.bubbly.base.MovementConfig;
+import in.arunkumarsampath.bubbly.base.WindowBubbleMovement;
+import in.arunkumarsampath.bubbly.view.CircleView;
+
+/**
+ * Hosts bubbles as system overlay windows so they outlive the activity that created them. Clients
+ * bind to the service and manage bubbles through {@link BubblyBinder}.
+ * <p>
+ * Windows are only attached once a bubble is shown and are detached as soon as the last bubble is
+ * removed, so an idle service holds no windows and no movement state. All bubbles are moved by a
+ * single {@link BubbleMovementManager}, with the first bubble leading the others, by positioning
+ * their windows through {@link WindowBubbleMovement}.
+ * <p>
+ * Requires the {@link android.Manifest.permission#SYSTEM_ALERT_WINDOW} permission to be granted.
+ */
 public class BubblyService extends Service {
 
+    private final BubblyBinder binder = new BubblyBinder();
+
+    /**
+     * Bubbles currently attached, in chain order.
+     */
+    private final List<View> bubbles = new ArrayList<>();
+
+    private WindowManager windowManager;
+
+    @Nullable
+    private BubbleMovementManager movementManager;
+    /**
+     * Frame source of the movement manager, null for the main thread's choreographer.
+     */
+    @Nullable
+    private FrameSource frameSource;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        windowManager = (WindowManager) getSystemService(WINDOW_SERVICE);
+    }
+
     @Override
     public IBinder onBind(Intent intent) {
-        throw new UnsupportedOperationException("Not yet implemented");
+        return binder;
+    }
+
+    @Override
+    public void onDestroy() {
+        removeAllBubbles();
+        super.onDestroy();
+    }
+
+    @MainThread
+    private void addBubble(@NonNull View bubble) {
+        if (bubbles.contains(bubble)) {
+            return;
+        }
+        windowManager.addView(bubble, createLayoutParams());
+        bubbles.add(bubble);
+        restartMovement();
+    }
+
+    @MainThread
+    private void removeBubble(@NonNull View bubble) {
+        if (!bubbles.contains(bubble)) {
+            return;
+        }
+        // Stop movement first, it may still flush a pending position to the window.
+        stopMovement();
+        bubbles.remove(bubble);
+        windowManager.removeView(bubble);
+        if (!bubbles.isEmpty()) {
+            restartMovement();
+        }
+    }
+
+    @MainThread
+    private void updateBubble(@NonNull View bubble) {
+        if (bubbles.contains(bubble)) {
+            windowManager.updateViewLayout(bubble, bubble.getLayoutParams());
+        }
+    }
+
+    @MainThread
+    private void removeAllBubbles() {
+        stopMovement();
+        for (View bubble : bubbles) {
+            windowManager.removeView(bubble);
+        }
+        bubbles.clear();
+    }
+
+    /**
+     * Recreates the movement manager for the current set of bubbles.
+     */
+    private void restartMovement() {
+        stopMovement();
+        final BubbleMovementManager.MovementFactory movementFactory =
+                (frameSource, bubble) -> new WindowBubbleMovement(frameSource, windowManager, bubble);
+        if (frameSource == null) {
+            movementManager = new BubbleMovementManager(this, bubbles, null, movementFactory);
+        } else {
+            movementManager = new BubbleMovementManager(this, bubbles, null, movementFactory,
+                    MovementConfig.DEFAULT, frameSource);
+        }
+        movementManager.addMotionStateListener(this::onMotionStateChanged);
+        onMotionStateChanged(BubbleMovementManager.STATE_IDLE, movementManager.getMotionState());
+        movementManager.start();
+    }
+
+    /**
+     * Lets resting bubbles drop their hardware layers, they are rendered into one again on the next
+     * touch.
+     */
+    private void onMotionStateChanged(int oldState, int newState) {
+        final boolean inMotion = newState != BubbleMovementManager.STATE_IDLE;
+        for (int i = 0; i < bubbles.size(); i++) {
+            final View bubble = bubbles.get(i);
+            if (bubble instanceof CircleView) {
+                ((CircleView) bubble).setInMotion(inMotion);
+            }
+        }
+    }
+
+    private void stopMovement() {
+        if (movementManager != null) {
+            movementManager.stop();
+            movementManager = null;
+        }
+    }
+
+    /**
+     * Drives the bubbles of movement managers created from now on from {@code frameSource}.
+     */
+    @VisibleForTesting
+    void setFrameSource(@Nullable FrameSource frameSource) {
+        this.frameSource = frameSource;
+    }
+
+    @VisibleForTesting
+    @Nullable
+    BubbleMovementManager getMovementManager() {
+        return movementManager;
+    }
+
+    @SuppressWarnings("deprecation")
+    @NonNull
+    private static WindowManager.LayoutParams createLayoutParams() {
+        final int type = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                ? WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY
+                : WindowManager.LayoutParams.TYPE_PHONE;
+        final WindowManager.LayoutParams params = new WindowManager.LayoutParams(
+                WindowManager.LayoutParams.WRAP_CONTENT,
+                WindowManager.LayoutParams.WRAP_CONTENT,
+                type,
+                WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE | WindowManager.LayoutParams.FLAG_LAYOUT_NO_LIMITS,
+                PixelFormat.TRANSLUCENT);
+        params.gravity = Gravity.TOP | Gravity.START;
+        return params;
+    }
+
+    /**
+     * Local binder to manage the hosted bubbles. Methods must be called on the main thread.
+     */
+    public class BubblyBinder extends Binder {
+
+        /**
+         * Shows {@code bubble} in its own overlay window. The first bubble added leads the others.
+         */
+        @MainThread
+        public void addBubble(@NonNull View bubble) {
+            BubblyService.this.addBubble(bubble);
+        }
+
+        /**
+         * Removes the bubble's window. Removing the last bubble releases all windows and movement
+         * state.
+         */
+        @MainThread
+        public void removeBubble(@NonNull View bubble) {
+            BubblyService.this.removeBubble(bubble);
+        }
+
+        /**
+         * Re-lays out the bubble's window, for example after its content changed size.
+         */
+        @MainThread
+        public void updateBubble(@NonNull View bubble) {
+            BubblyService.this.updateBubble(bubble);
+        }
+
+        @MainThread
+        public void removeAllBubbles() {
+            BubblyService.this.removeAllBubbles();
+        }
+
+        @MainThread
+        @NonNull
+        public List<View> getBubbles() {
+            return Collections.unmodifiableList(bubbles);
+        }
     }
 }
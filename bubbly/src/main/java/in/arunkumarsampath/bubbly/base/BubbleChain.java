@@ -0,0 +1,248 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.List;
+
+import in.arunkumarsampath.bubbly.physics.SpringSimulation;
+
+/**
+ * Makes a chain of follower bubbles trail a leader. Each follower is pulled towards its predecessor
+ * by a damped {@link SpringSimulation}, the first follower towards the leader. When expanded each
+ * follower is pulled towards its own target instead, the followers setting off one after the other.
+ * <p>
+ * The whole chain is stepped from a single {@link FrameSource.Callback} and its springs are created
+ * up front, so the work per frame is linear in the number of followers and nothing is allocated
+ * while the chain moves. The callback is only posted while the chain is in motion.
+ */
+final class BubbleChain implements FrameSource.Callback {
+    /**
+     * Longest step of the springs, frames are split into sub steps no longer than this. The springs
+     * are solved exactly for a fixed target, sub steps let each follower's target, its predecessor,
+     * move within a frame.
+     */
+    private static final float MAX_STEP_SECONDS = 1 / 240f;
+    /**
+     * Upper bound of a frame's time delta so a long stall does not launch the followers.
+     */
+    private static final float MAX_FRAME_SECONDS = 1 / 15f;
+    private static final float DEFAULT_FRAME_SECONDS = 1 / 60f;
+
+    /**
+     * Followers closer than this to their target, in pixels, and slow enough are considered at
+     * rest.
+     */
+    private static final float REST_DISTANCE_THRESHOLD = 0.5f;
+
+    private final FrameSource frameSource;
+    private final BubbleMovement[] followers;
+
+    private final SpringSimulation[] xSprings;
+    private final SpringSimulation[] ySprings;
+    private final float[] expandedX;
+    private final float[] expandedY;
+
+    private boolean expanded;
+    private float staggerSeconds;
+    /**
+     * Time simulated since the chain expanded, the followers released so far depend on it.
+     */
+    private float expandedSeconds;
+
+    private float leaderX;
+    private float leaderY;
+
+    private long lastFrameTimeNanos = -1;
+    private boolean running;
+    @Nullable
+    private Runnable restListener;
+
+    BubbleChain(@NonNull FrameSource frameSource, @NonNull List<? extends BubbleMovement> followers) {
+        this(frameSource, followers, MovementConfig.DEFAULT.getSpringStiffness(),
+                MovementConfig.DEFAULT.getSpringDampingRatio());
+    }
+
+    BubbleChain(@NonNull FrameSource frameSource, @NonNull List<? extends BubbleMovement> followers,
+                float stiffness, float dampingRatio) {
+        this.frameSource = frameSource;
+        this.followers = followers.toArray(new BubbleMovement[0]);
+        final int size = this.followers.length;
+        xSprings = new SpringSimulation[size];
+        ySprings = new SpringSimulation[size];
+        for (int i = 0; i < size; i++) {
+            xSprings[i] = createSpring(stiffness, dampingRatio);
+            ySprings[i] = createSpring(stiffness, dampingRatio);
+        }
+        expandedX = new float[size];
+        expandedY = new float[size];
+    }
+
+    @NonNull
+    private static SpringSimulation createSpring(float stiffness, float dampingRatio) {
+        return new SpringSimulation()
+                .setStiffness(stiffness)
+                .setDampingRatio(dampingRatio)
+                .setValueThreshold(REST_DISTANCE_THRESHOLD);
+    }
+
+    int size() {
+        return followers.length;
+    }
+
+    /**
+     * Places the follower at {@code index} without animating, for example to its initial position.
+     */
+    void setPosition(int index, float x, float y) {
+        xSprings[index].setStartValue(x).setStartVelocity(0);
+        ySprings[index].setStartValue(y).setStartVelocity(0);
+    }
+
+    float getX(int index) {
+        return xSprings[index].getValue();
+    }
+
+    float getY(int index) {
+        return ySprings[index].getValue();
+    }
+
+    void setLeaderX(float x) {
+        leaderX = x;
+        wake();
+    }
+
+    void setLeaderY(float y) {
+        leaderY = y;
+        wake();
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Springs every follower to its own target instead of trailing its predecessor, follower
+     * {@code i} setting off {@code i} times {@code staggerSeconds} after the first.
+     *
+     * @param xs Target x of each follower, copied.
+     * @param ys Target y of each follower, copied.
+     */
+    void expand(@NonNull float[] xs, @NonNull float[] ys, float staggerSeconds) {
+        System.arraycopy(xs, 0, expandedX, 0, followers.length);
+        System.arraycopy(ys, 0, expandedY, 0, followers.length);
+        this.staggerSeconds = staggerSeconds;
+        expandedSeconds = 0;
+        expanded = true;
+        wake();
+    }
+
+    /**
+     * Makes the followers trail the leader again, which stacks them back onto it.
+     */
+    void collapse() {
+        if (expanded) {
+            expanded = false;
+            wake();
+        }
+    }
+
+    boolean isExpanded() {
+        return expanded;
+    }
+
+    /**
+     * Sets the listener run when the followers come to rest on their own, not when stopped.
+     */
+    void setRestListener(@Nullable Runnable restListener) {
+        this.restListener = restListener;
+    }
+
+    /**
+     * Stops stepping the chain, the followers stay where they are.
+     */
+    void stop() {
+        running = false;
+        frameSource.removeFrameCallback(this);
+    }
+
+    private void wake() {
+        if (!running && followers.length > 0) {
+            running = true;
+            lastFrameTimeNanos = -1;
+            frameSource.postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) {
+            return;
+        }
+        final float frameSeconds;
+        if (lastFrameTimeNanos < 0) {
+            frameSeconds = DEFAULT_FRAME_SECONDS;
+        } else {
+            frameSeconds = Math.min(MAX_FRAME_SECONDS, (frameTimeNanos - lastFrameTimeNanos) / 1e9f);
+        }
+        lastFrameTimeNanos = frameTimeNanos;
+
+        final int released;
+        if (expanded) {
+            released = staggerSeconds > 0
+                    ? Math.min(followers.length, 1 + (int) (expandedSeconds / staggerSeconds))
+                    : followers.length;
+            expandedSeconds += frameSeconds;
+        } else {
+            released = followers.length;
+        }
+        final boolean atRest = step(frameSeconds, released) && released == followers.length;
+
+        for (int i = 0; i < followers.length; i++) {
+            followers[i].moveX(xSprings[i].getValue(), xSprings[i].getVelocity());
+            followers[i].moveY(ySprings[i].getValue(), ySprings[i].getVelocity());
+        }
+
+        if (atRest) {
+            running = false;
+            if (restListener != null) {
+                restListener.run();
+            }
+        } else {
+            frameSource.postFrameCallback(this);
+        }
+    }
+
+    /**
+     * Advances the springs of the first {@code released} followers by {@code seconds}, the others
+     * hold still. A spring at rest snaps onto its target, so a chain at rest ends perfectly stacked
+     * or laid out.
+     *
+     * @return True if all released followers came to rest.
+     */
+    private boolean step(float seconds, int released) {
+        final int steps = Math.max(1, (int) Math.ceil(seconds / MAX_STEP_SECONDS));
+        final long stepNanos = (long) (seconds / steps * 1e9);
+        boolean atRest = true;
+        for (int step = 0; step < steps; step++) {
+            atRest = true;
+            float targetX = leaderX;
+            float targetY = leaderY;
+            for (int i = 0; i < released; i++) {
+                if (expanded) {
+                    targetX = expandedX[i];
+                    targetY = expandedY[i];
+                }
+                final SpringSimulation xSpring = xSprings[i];
+                final SpringSimulation ySpring = ySprings[i];
+                final boolean xAtRest = xSpring.setFinalPosition(targetX).step(stepNanos);
+                final boolean yAtRest = ySpring.setFinalPosition(targetY).step(stepNanos);
+                if (!xAtRest || !yAtRest) {
+                    atRest = false;
+                }
+                targetX = xSpring.getValue();
+                targetY = ySpring.getValue();
+            }
+        }
+        return atRest;
+    }
+}
@@ -1,179 +1,732 @@
 package in.arunkumarsampath.bubbly.base;
 
 import android.content.Context;
-import android.content.res.Resources;
 import android.graphics.Rect;
-import android.support.animation.FlingAnimation;
-import android.support.animation.FloatValueHolder;
-import android.support.animation.SpringAnimation;
-import android.support.animation.SpringForce;
+import android.support.annotation.IntDef;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
-import android.util.DisplayMetrics;
+import android.support.annotation.VisibleForTesting;
 import android.view.GestureDetector;
 import android.view.GestureDetector.SimpleOnGestureListener;
 import android.view.MotionEvent;
 import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
+import android.view.WindowManager;
 
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
-import in.arunkumarsampath.bubbly.util.Utils;
+import in.arunkumarsampath.bubbly.physics.FlingSimulation;
+import in.arunkumarsampath.bubbly.physics.SpringSimulation;
+import in.arunkumarsampath.bubbly.util.DisplayMetricsCache;
 
-import static in.arunkumarsampath.bubbly.base.MovementTracker.adjustVelocities;
+import static in.arunkumarsampath.bubbly.base.MovementTracker.interpolateVelocities;
 
 /**
  * Created by Arunkumar on 20/05/17.
  */
 public class BubbleMovementManager implements BubbleMovement {
     private static final String TAG = BubbleMovementManager.class.getSimpleName();
+    /**
+     * Refresh rate assumed when the display does not report one.
+     */
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+    /**
+     * Space between neighbouring bubbles of an expanded stack.
+     */
+    private static final float EXPANDED_GAP_DP = 8f;
+    /**
+     * Delay between consecutive bubbles setting off when the stack expands.
+     */
+    private static final float EXPAND_STAGGER_SECONDS = 0.016f;
 
     private Context context;
 
-    private static final SpringForce DEFAULT_SPRING_FORCE = new SpringForce();
-    private SpringForce springForce;
+    /**
+     * The bubbles are at rest. Transient gesture and animation resources are released until the
+     * next touch.
+     */
+    public static final int STATE_IDLE = 0;
+    /**
+     * The master bubble is being touched.
+     */
+    public static final int STATE_DRAGGING = 1;
+    /**
+     * The master bubble was flung and is moving freely.
+     */
+    public static final int STATE_FLINGING = 2;
+    /**
+     * The bubbles are springing to where they dock.
+     */
+    public static final int STATE_SETTLING = 3;
+
+    @IntDef({STATE_IDLE, STATE_DRAGGING, STATE_FLINGING, STATE_SETTLING})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface MotionState {
+    }
+
+    public interface MotionStateListener {
+        void onMotionStateChanged(@MotionState int oldState, @MotionState int newState);
+    }
+
+    private final List<MotionStateListener> motionStateListeners = new ArrayList<>();
+    @MotionState
+    private int motionState = STATE_IDLE;
+
+    private final MovementConfig config;
     private GestureDetector gestureDetector;
 
-    private static final float FLING_FRICTION = 0.5f;
+    /**
+     * Creates the movement that applies a bubble's position.
+     */
+    public interface MovementFactory {
+        @NonNull
+        CoalescingBubbleMovement create(@NonNull FrameSource frameSource, @NonNull View bubble);
+    }
+
+    /**
+     * Moves bubbles by setting the translation of their views.
+     */
+    public static final MovementFactory VIEW_MOVEMENT_FACTORY = (frameSource, bubble) -> {
+        final CoalescingBubbleMovement movement = new CoalescingBubbleMovement(frameSource, new ViewBubbleMovement(bubble));
+        movement.setPosition(bubble.getTranslationX(), bubble.getTranslationY());
+        return movement;
+    };
+
+    private final MovementFactory movementFactory;
+    private final FrameSource frameSource;
 
     private final List<View> views = new LinkedList<>();
 
     private final int touchSlop;
     private Rect bounds;
+    /**
+     * True if {@link #bounds} cover the display and follow its size.
+     */
+    private boolean boundsFromDisplay;
+
+    private final DisplayMetricsCache displayMetrics;
+    private final DisplayMetricsCache.Listener displayMetricsListener = cache -> onDisplayMetricsChanged();
+    private GestureDetectorListener gestureListener;
+    /**
+     * True between a touch going down and up on the master bubble.
+     */
+    private boolean touching;
 
     private View masterView;
+    /**
+     * Applies the master bubble's position once per frame.
+     */
+    private CoalescingBubbleMovement masterMovement;
+    /**
+     * Latest position of the master bubble. The view lags behind by up to a frame since updates
+     * are coalesced, so motion always starts from these values instead of the view's translation.
+     */
+    private float masterX;
+    private float masterY;
 
     private boolean wasFlung;
 
     private MovementTracker movementTracker;
     private VelocityTracker velocityTracker = null;
-
-    private SpringAnimation masterXStickyAnim;
-    private SpringAnimation masterYStickyAnim;
-    private FlingAnimation masterXFlingAnim;
-    private FlingAnimation masterYFlingAnim;
+    /**
+     * True once {@link #velocityTracker} has samples its current velocity does not account for yet.
+     * Velocity is only computed when something asks for it, see {@link #getDragVelocity(float[])}.
+     */
+    private boolean velocityStale;
+    /**
+     * Moves tracked and velocity computations done in the current gesture, reset when it begins.
+     */
+    private int velocitySamples;
+    private int velocityComputations;
+    /**
+     * Scratch buffer of the drag velocity handed to the dismiss zone's snap.
+     */
+    private final float[] dragVelocity = new float[2];
+    @Nullable
+    private GestureMetrics gestureMetrics;
+    @Nullable
+    private GestureRecorder gestureRecorder;
+    /**
+     * Estimates velocity and prediction on a worker thread, null unless enabled with
+     * {@link #setOffMainThreadEstimationEnabled(boolean)}. Runs from {@link #start()}, or from
+     * being enabled, until {@link #stop()} or being disabled, parked between gestures. Never
+     * switched in the middle of a gesture.
+     */
+    @Nullable
+    private GestureEstimator estimator;
+    private boolean offMainThreadEstimation;
+    private boolean started;
+    /**
+     * Scratch buffer of the values read from {@link #estimator}.
+     */
+    private final float[] estimateValues = new float[GestureEstimate.SIZE];
+    /**
+     * Samples offered to {@link #estimator} before the event lifting the finger, an estimate
+     * accounting for as many is recent enough to fling with.
+     */
+    private long samplesBeforeRelease;
+    private long velocityWindowMillis = MovementTracker.DEFAULT_VELOCITY_WINDOW_MILLIS;
+
+    /**
+     * How far ahead of the last touch sample the dragged bubble is placed, 0 when touch prediction
+     * is disabled.
+     */
+    private long touchPredictionMillis;
+    /**
+     * Scratch buffer holding the predicted raw {x, y} touch position, reused across events.
+     */
+    private final float[] predictedTouch = new float[2];
+
+    private final SpringSimulation xSpring = new SpringSimulation();
+    private final SpringSimulation ySpring = new SpringSimulation();
+    private final FlingSimulation xFling = new FlingSimulation();
+    private final FlingSimulation yFling = new FlingSimulation();
+
+    /**
+     * Where the master bubble docks to once released.
+     */
+    private final SnapTargetRegistry snapTargets = new SnapTargetRegistry();
+    /**
+     * Scratch buffer holding the {x, y} docked position, reused across gestures.
+     */
+    private final float[] dockPosition = new float[2];
+
+    /**
+     * Dismisses the master bubble when released onto it, null when bubbles can not be dismissed.
+     */
+    @Nullable
+    private DismissZone dismissZone;
+    /**
+     * True while the dragged master bubble is held by {@link #dismissZone} instead of following the
+     * finger.
+     */
+    private boolean inDismissZone;
+
+    /**
+     * Live as long as the manager, each gesture only retargets their simulations so no animation
+     * objects or listeners are allocated per gesture.
+     */
+    private final PhysicsAnimation masterXStickyAnim;
+    private final PhysicsAnimation masterYStickyAnim;
+    private final PhysicsAnimation masterXFlingAnim;
+    private final PhysicsAnimation masterYFlingAnim;
+
+    /**
+     * Trails the remaining bubbles behind {@link #masterView}, null when there is only one bubble.
+     */
+    @Nullable
+    private BubbleChain chain;
+    /**
+     * Movements of the followers the chain moves, flushed when stopping.
+     */
+    @Nullable
+    private List<CoalescingBubbleMovement> followerMovements;
+    /**
+     * Targets of the followers in the expanded stack, sized once with the chain.
+     */
+    private float[] expandedX;
+    private float[] expandedY;
 
     public BubbleMovementManager(@NonNull Context context, @NonNull List<View> bubbles, @Nullable Rect bounds) {
+        this(context, bubbles, bounds, VIEW_MOVEMENT_FACTORY);
+    }
+
+    /**
+     * @param movementFactory Creates the movement of each bubble, for example
+     *                        {@link WindowBubbleMovement} for bubbles hosted in their own windows.
+     *                        The movement's initial position is taken as the bubble's position.
+     */
+    public BubbleMovementManager(@NonNull Context context, @NonNull List<View> bubbles, @Nullable Rect bounds,
+                                 @NonNull MovementFactory movementFactory) {
+        this(context, bubbles, bounds, movementFactory, MovementConfig.DEFAULT);
+    }
+
+    /**
+     * @param config Physics parameters of this manager's bubbles.
+     */
+    public BubbleMovementManager(@NonNull Context context, @NonNull List<View> bubbles, @Nullable Rect bounds,
+                                 @NonNull MovementFactory movementFactory, @NonNull MovementConfig config) {
+        this(context, bubbles, bounds, movementFactory, config, ChoreographerFrameSource.getInstance());
+    }
+
+    /**
+     * @param frameSource Drives all motion of the bubbles, a manual source makes it deterministic.
+     */
+    public BubbleMovementManager(@NonNull Context context, @NonNull List<View> bubbles, @Nullable Rect bounds,
+                                 @NonNull MovementFactory movementFactory, @NonNull MovementConfig config,
+                                 @NonNull FrameSource frameSource) {
         this.context = context;
+        this.movementFactory = movementFactory;
+        this.config = config;
+        this.frameSource = frameSource;
 
         views.addAll(bubbles);
-        masterView = bubbles.remove(0);
-
-        springForce = DEFAULT_SPRING_FORCE;
-        springForce.setStiffness(SpringForce.STIFFNESS_LOW);
-        springForce.setDampingRatio(SpringForce.DAMPING_RATIO_MEDIUM_BOUNCY);
+        masterView = views.get(0);
+        masterMovement = movementFactory.create(frameSource, masterView);
+        masterX = masterMovement.getX();
+        masterY = masterMovement.getY();
 
         final ViewConfiguration viewConfiguration = ViewConfiguration.get(context);
         touchSlop = viewConfiguration.getScaledTouchSlop();
-        movementTracker = MovementTracker.obtain();
 
+        displayMetrics = DisplayMetricsCache.getInstance(context);
         if (bounds == null) {
+            boundsFromDisplay = true;
             initBounds();
         } else {
             this.bounds = bounds;
         }
+        updateSnapRange();
+
+        gestureListener = new GestureDetectorListener();
+        displayMetrics.addListener(displayMetricsListener);
+
+        xSpring.setStiffness(config.getSpringStiffness()).setDampingRatio(config.getSpringDampingRatio());
+        ySpring.setStiffness(config.getSpringStiffness()).setDampingRatio(config.getSpringDampingRatio());
+        masterXStickyAnim = new PhysicsAnimation(frameSource, xSpring, this::moveX, (value, velocity) -> checkIdle());
+        masterYStickyAnim = new PhysicsAnimation(frameSource, ySpring, this::moveY, (value, velocity) -> checkIdle());
+        xFling.setFriction(config.getFlingFriction());
+        yFling.setFriction(config.getFlingFriction());
+        masterXFlingAnim = new PhysicsAnimation(frameSource, xFling, this::moveX,
+                (value, velocity) -> onXFlingEnd(velocity));
+        masterYFlingAnim = new PhysicsAnimation(frameSource, yFling, this::moveY,
+                (value, velocity) -> onYFlingEnd(velocity));
+
+        initChain();
+    }
+
+    /**
+     * Acquires what handling a gesture needs, if it was released while the bubbles were idle.
+     */
+    private void acquireGestureResources() {
+        if (movementTracker == null) {
+            movementTracker = MovementTracker.obtain();
+            movementTracker.setVelocityWindowMillis(velocityWindowMillis);
+        }
+        if (gestureDetector == null) {
+            gestureDetector = new GestureDetector(context.getApplicationContext(), gestureListener);
+        }
+    }
+
+    /**
+     * Releases the trackers, which only a gesture in progress needs, once the bubbles are idle. The
+     * animations, gesture detector and estimator are kept for the next gesture.
+     */
+    private void releaseGestureResources() {
+        if (movementTracker != null) {
+            movementTracker.recycle();
+            movementTracker = null;
+        }
+        if (velocityTracker != null) {
+            velocityTracker.recycle();
+            velocityTracker = null;
+        }
+    }
+
+    @MotionState
+    public int getMotionState() {
+        return motionState;
+    }
+
+    public void addMotionStateListener(@NonNull MotionStateListener listener) {
+        if (!motionStateListeners.contains(listener)) {
+            motionStateListeners.add(listener);
+        }
+    }
+
+    public void removeMotionStateListener(@NonNull MotionStateListener listener) {
+        motionStateListeners.remove(listener);
+    }
+
+    private void setMotionState(@MotionState int state) {
+        if (motionState == state) {
+            return;
+        }
+        final int oldState = motionState;
+        motionState = state;
+        if (gestureMetrics != null) {
+            gestureMetrics.onMotionStateChanged(state);
+        }
+        for (int i = 0; i < motionStateListeners.size(); i++) {
+            motionStateListeners.get(i).onMotionStateChanged(oldState, state);
+        }
+    }
 
-        gestureDetector = new GestureDetector(context.getApplicationContext(), new GestureDetectorListener());
+    /**
+     * Moves to {@link #STATE_IDLE} and releases the gesture resources once nothing touches or moves
+     * the bubbles anymore.
+     */
+    private void checkIdle() {
+        if (touching || masterView == null
+                || masterXFlingAnim.isRunning() || masterYFlingAnim.isRunning()
+                || masterXStickyAnim.isRunning() || masterYStickyAnim.isRunning()
+                || (chain != null && chain.isRunning())) {
+            return;
+        }
+        setMotionState(STATE_IDLE);
+        releaseGestureResources();
+    }
+
+    private void initChain() {
+        if (views.size() < 2) {
+            return;
+        }
+        final List<CoalescingBubbleMovement> followers = new ArrayList<>(views.size() - 1);
+        for (int i = 1; i < views.size(); i++) {
+            followers.add(movementFactory.create(frameSource, views.get(i)));
+        }
+        chain = new BubbleChain(frameSource, followers, config.getSpringStiffness(),
+                config.getSpringDampingRatio());
+        followerMovements = followers;
+        chain.setRestListener(this::checkIdle);
+        expandedX = new float[followers.size()];
+        expandedY = new float[followers.size()];
+        for (int i = 0; i < followers.size(); i++) {
+            final CoalescingBubbleMovement follower = followers.get(i);
+            chain.setPosition(i, follower.getX(), follower.getY());
+        }
+        chain.setLeaderX(masterX);
+        chain.setLeaderY(masterY);
+    }
+
+    /**
+     * Sets the range of the snap targets to the positions keeping the master bubble within bounds.
+     */
+    private void updateSnapRange() {
+        snapTargets.setRange(bounds.left, bounds.top,
+                bounds.right - masterView.getWidth(), bounds.bottom - masterView.getHeight());
     }
 
     private void initBounds() {
-        final DisplayMetrics metrics = Resources.getSystem().getDisplayMetrics();
-        bounds = new Rect(0, 0, metrics.widthPixels, metrics.heightPixels);
+        bounds = new Rect(0, 0, displayMetrics.getWidthPixels(), displayMetrics.getHeightPixels());
+    }
+
+    /**
+     * Follows a rotation or other display change: refreshes the bounds if they cover the display
+     * and the fling threshold, then docks the master bubble again unless it is being touched.
+     */
+    private void onDisplayMetricsChanged() {
+        if (boundsFromDisplay) {
+            bounds.set(0, 0, displayMetrics.getWidthPixels(), displayMetrics.getHeightPixels());
+        }
+        updateSnapRange();
+        gestureListener.updateMinimumFlingVelocity();
+        if (!touching && !inDismissZone) {
+            cancelAllAnim();
+            dock(0, 0);
+            if (isExpanded()) {
+                // Lay the stack out again within the new bounds.
+                expand();
+            }
+        }
+    }
+
+    /**
+     * Spreads the bubbles out in rows next to where the master bubble docks, or lays them out
+     * again if already expanded. Tapping the master bubble toggles between the expanded and the
+     * stacked bubbles, dragging it stacks them.
+     */
+    public void expand() {
+        if (chain == null) {
+            return;
+        }
+        findDockPosition(0, 0);
+        float size = 0;
+        for (int i = 0; i < views.size(); i++) {
+            final View view = views.get(i);
+            size = Math.max(size, Math.max(view.getWidth(), view.getHeight()));
+        }
+        final float slot = size + displayMetrics.dpToPx(EXPANDED_GAP_DP);
+        ExpandedLayout.layoutRows(bounds.left, bounds.top, bounds.right - size, bounds.bottom - size,
+                dockPosition[0], dockPosition[1], slot, expandedX.length, expandedX, expandedY);
+        chain.expand(expandedX, expandedY, EXPAND_STAGGER_SECONDS);
+        if (!touching) {
+            setMotionState(STATE_SETTLING);
+        }
+    }
+
+    /**
+     * Stacks the bubbles behind the master bubble again.
+     */
+    public void collapse() {
+        if (chain == null || !chain.isExpanded()) {
+            return;
+        }
+        chain.collapse();
+        if (!touching) {
+            setMotionState(STATE_SETTLING);
+        }
+    }
+
+    public boolean isExpanded() {
+        return chain != null && chain.isExpanded();
+    }
+
+    /**
+     * Enables placing the dragged bubble where the finger is predicted to be one display frame
+     * after the latest touch sample, instead of exactly at it. This hides the frame or two the
+     * bubble otherwise trails behind the finger. Disabled by default.
+     */
+    public void setTouchPredictionEnabled(boolean enabled) {
+        touchPredictionMillis = enabled ? frameIntervalMillis() : 0;
+        if (estimator != null) {
+            estimator.setPredictionMillis(touchPredictionMillis);
+        }
+    }
+
+    /**
+     * Moves velocity estimation and touch prediction off the UI thread. Touch samples are handed to
+     * a worker thread through a lock-free ring and the dragged bubble is placed once per frame from
+     * the worker's latest estimate, rather than the UI thread fitting every touch event. The worker
+     * is started here, or by {@link #start()}, and parks between gestures. Switching during a
+     * gesture takes effect once it ends.
+     */
+    public void setOffMainThreadEstimationEnabled(boolean enabled) {
+        offMainThreadEstimation = enabled;
+        if (!touching) {
+            updateEstimator();
+        }
+    }
+
+    public boolean isOffMainThreadEstimationEnabled() {
+        return offMainThreadEstimation;
+    }
+
+    /**
+     * Starts or stops the worker thread to match {@link #offMainThreadEstimation} while started,
+     * between gestures.
+     */
+    private void updateEstimator() {
+        if (offMainThreadEstimation && started && estimator == null) {
+            estimator = new GestureEstimator();
+            estimator.setPredictionMillis(touchPredictionMillis);
+            estimator.setVelocityWindowMillis(velocityWindowMillis);
+            estimator.start();
+        } else if ((!offMainThreadEstimation || !started) && estimator != null) {
+            estimator.stop();
+            estimator = null;
+        }
+    }
+
+    public boolean isTouchPredictionEnabled() {
+        return touchPredictionMillis > 0;
+    }
+
+    /**
+     * Sets the time window of the most recent touch samples the fling velocity is estimated from,
+     * {@link MovementTracker#DEFAULT_VELOCITY_WINDOW_MILLIS} by default. Windows longer than a
+     * second are estimated from the last second of samples.
+     *
+     * @param windowMillis The window in milliseconds, must be positive.
+     */
+    public void setVelocityWindowMillis(long windowMillis) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("Window must be positive: " + windowMillis);
+        }
+        velocityWindowMillis = windowMillis;
+        if (movementTracker != null) {
+            movementTracker.setVelocityWindowMillis(windowMillis);
+        }
+        if (estimator != null) {
+            estimator.setVelocityWindowMillis(windowMillis);
+        }
+    }
+
+    private long frameIntervalMillis() {
+        return Math.round(frameIntervalNanos() / 1e6);
+    }
+
+    private long frameIntervalNanos() {
+        final WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        final float refreshRate = windowManager != null ? windowManager.getDefaultDisplay().getRefreshRate() : 0;
+        return Math.round(1e9 / (refreshRate > 0 ? refreshRate : DEFAULT_REFRESH_RATE));
+    }
+
+    /**
+     * Records the frame timing of every following gesture and reports it to {@code listener} once
+     * the bubbles are idle again, see {@link GestureMetrics}. Recording costs a frame callback per
+     * frame during gestures and is off until a listener is set.
+     *
+     * @param listener The listener, or null to stop recording.
+     */
+    public void setGestureMetricsListener(@Nullable GestureMetrics.Listener listener) {
+        if (listener == null) {
+            if (gestureMetrics != null) {
+                gestureMetrics.setAllocationCountingEnabled(false);
+                gestureMetrics.cancel();
+                gestureMetrics = null;
+            }
+            return;
+        }
+        if (gestureMetrics == null) {
+            gestureMetrics = new GestureMetrics(frameSource, frameIntervalNanos());
+        }
+        gestureMetrics.setListener(listener);
+    }
+
+    /**
+     * Records every touch event delivered to the master bubble into {@code recorder}, for example
+     * to capture real gestures to replay in tests.
+     *
+     * @param recorder The recorder, or null to stop recording.
+     */
+    public void setGestureRecorder(@Nullable GestureRecorder recorder) {
+        gestureRecorder = recorder;
+    }
+
+    /**
+     * @return The gesture metrics being recorded, null unless a listener was set with
+     * {@link #setGestureMetricsListener(GestureMetrics.Listener)}.
+     */
+    @Nullable
+    public GestureMetrics getGestureMetrics() {
+        return gestureMetrics;
     }
 
     public void start() {
         masterView.setOnTouchListener(new TouchListener());
+        started = true;
+        updateEstimator();
     }
 
     public void stop() {
+        displayMetrics.removeListener(displayMetricsListener);
         context = null;
         cancelAllAnim();
+        masterMovement.flush();
+        if (chain != null) {
+            chain.stop();
+            chain = null;
+            // A follower may still have a position pending, apply it while its window is attached.
+            for (int i = 0; i < followerMovements.size(); i++) {
+                followerMovements.get(i).flush();
+            }
+            followerMovements = null;
+        }
         masterView.setOnTouchListener(null);
         masterView = null;
-        gestureDetector = null;
+        gestureListener = null;
+
+        releaseGestureResources();
+        started = false;
+        updateEstimator();
+        setGestureMetricsListener(null);
+        setMotionState(STATE_IDLE);
+        motionStateListeners.clear();
     }
 
     @Override
     public void moveX(float x, float velocity) {
-        masterView.setTranslationX(x);
+        masterX = x;
+        masterMovement.moveX(x, velocity);
+        if (chain != null) {
+            chain.setLeaderX(x);
+        }
     }
 
     @Override
     public void moveY(float y, float velocity) {
-        masterView.setTranslationY(y);
+        masterY = y;
+        masterMovement.moveY(y, velocity);
+        if (chain != null) {
+            chain.setLeaderY(y);
+        }
     }
 
-    private void stickToX(final float startVelocity) {
-        cancelMasterXStickyAnim();
-        masterXStickyAnim = new SpringAnimation(new FloatValueHolder())
-                .setSpring(springForce)
-                .setStartVelocity(startVelocity)
-                .setStartValue(masterView.getTranslationX())
-                .addUpdateListener((animation, value, velocity) -> moveX(value, velocity));
-
-        if (masterView.getTranslationX() > bounds.width() / 2) {
-            masterXStickyAnim.animateToFinalPosition(bounds.width() - masterView.getWidth());
-        } else {
-            masterXStickyAnim.animateToFinalPosition(bounds.left);
+    private void onXFlingEnd(float velocity) {
+        dock(velocity, masterYFlingAnim.isRunning() ? yFling.getVelocity() : 0);
+
+        cancelYFling();
+    }
+
+    private void onYFlingEnd(float velocity) {
+        // Docking waits for the x fling, which keeps carrying the bubble sideways.
+        if (!masterXFlingAnim.isRunning()) {
+            dock(0, velocity);
         }
     }
 
-    private void stickToY(final float startVelocity) {
-        cancelMasterYStickyAnim();
-        masterYStickyAnim = new SpringAnimation(new FloatValueHolder())
-                .setSpring(springForce)
-                .setStartVelocity(startVelocity)
-                .setStartValue(masterView.getTranslationY())
-                .addUpdateListener((animation, value, velocity) -> moveY(value, velocity));
+    /**
+     * Docks the master bubble to the snap target the given velocities would carry it to, springing
+     * there from its current position and velocity.
+     */
+    private void dock(float xVelocity, float yVelocity) {
+        cancelAllSticky();
+        findDockPosition(xVelocity, yVelocity);
+
+        // A projected dock carries the whole fling, critical damping lands it without bouncing.
+        final float dampingRatio = config.isProjectedDocking() ? 1f : config.getSpringDampingRatio();
+        xSpring.setDampingRatio(dampingRatio);
+        ySpring.setDampingRatio(dampingRatio);
+        xSpring.setStartValue(masterX)
+                .setStartVelocity(xVelocity)
+                .setFinalPosition(dockPosition[0]);
+        ySpring.setStartValue(masterY)
+                .setStartVelocity(yVelocity)
+                .setFinalPosition(dockPosition[1]);
+        masterXStickyAnim.start();
+        masterYStickyAnim.start();
+        setMotionState(STATE_SETTLING);
+    }
 
-        if (masterView.getTranslationY() < bounds.top) {
-            masterYStickyAnim.animateToFinalPosition(bounds.top);
-        } else if (masterView.getTranslationY() > bounds.height()) {
-            masterYStickyAnim.animateToFinalPosition(bounds.height() - masterView.getWidth());
+    /**
+     * Projects where a fling from the master bubble's position with the given velocities comes to
+     * rest and stores the snap target chosen for that landing point in {@link #dockPosition}.
+     *
+     * @return The point target chosen, or null for an edge.
+     */
+    @Nullable
+    private SnapTarget findDockPosition(float xVelocity, float yVelocity) {
+        // The bubble may have been laid out or resized since.
+        updateSnapRange();
+        final float landingX = FlingSimulation.projectEndValue(masterX, xVelocity, config.getFlingFriction());
+        final float landingY = FlingSimulation.projectEndValue(masterY, yVelocity, config.getFlingFriction());
+        return snapTargets.findTarget(landingX, landingY, dockPosition);
+    }
+
+    /**
+     * Flings the master bubble with the given velocities, reusing the existing fling animations.
+     */
+    @VisibleForTesting
+    void fling(float xVelocity, float yVelocity) {
+        cancelAllAnim();
+        if (config.isProjectedDocking() || findDockPosition(xVelocity, yVelocity) != null) {
+            // Heading for a magnetic point, or projecting every fling, spring straight to the
+            // target rather than flinging to the bounds first.
+            dock(xVelocity, yVelocity);
+            return;
         }
+        flingX(xVelocity);
+        flingY(yVelocity);
+        setMotionState(STATE_FLINGING);
     }
 
     private void flingX(float startVelocity) {
         final int xMin = bounds.left;
-        final int xMax = bounds.width() - masterView.getWidth();
-        final float xStartValue = Math.max(xMin, Math.min(xMax, masterView.getTranslationX()));
+        final int xMax = bounds.right - masterView.getWidth();
+        final float xStartValue = Math.max(xMin, Math.min(xMax, masterX));
 
-        masterXFlingAnim = new FlingAnimation(new FloatValueHolder())
-                .setMinValue(xMin)
+        xFling.setMinValue(xMin)
                 .setMaxValue(xMax)
-                .setFriction(FLING_FRICTION)
                 .setStartValue(xStartValue)
-                .setStartVelocity(startVelocity)
-                .addUpdateListener((animation, value, velocity) -> moveX(value, value))
-                .addEndListener((dynamicAnimation, cancelled, value, velocity) -> {
-                    if (!cancelled) {
-                        stickToX(velocity);
-
-                        cancelYFling();
-                    }
-                });
+                .setStartVelocity(startVelocity);
         masterXFlingAnim.start();
     }
 
     private void flingY(float startVelocity) {
         final int yMin = bounds.top;
-        final int yMax = bounds.height() - masterView.getHeight();
-        final float yStartValue = Math.max(yMin, Math.min(yMax, masterView.getTranslationY()));
+        final int yMax = bounds.bottom - masterView.getHeight();
+        final float yStartValue = Math.max(yMin, Math.min(yMax, masterY));
 
-        masterYFlingAnim = new FlingAnimation(new FloatValueHolder())
-                .setMinValue(yMin)
+        yFling.setMinValue(yMin)
                 .setMaxValue(yMax)
-                .setFriction(FLING_FRICTION)
                 .setStartValue(yStartValue)
-                .setStartVelocity(startVelocity)
-                .addUpdateListener((animation, value, velocity) -> moveY(value, velocity))
-                .addEndListener((dynamicAnimation, cancelled, value, velocity) -> {
-                    if (!cancelled) {
-                        stickToY(velocity);
-                    }
-                });
+                .setStartVelocity(startVelocity);
         masterYFlingAnim.start();
     }
 
@@ -193,94 +746,382 @@ public class BubbleMovementManager implements BubbleMovement {
     }
 
     private void cancelYFling() {
-        if (masterYFlingAnim != null) {
-            masterYFlingAnim.cancel();
-        }
+        masterYFlingAnim.cancel();
     }
 
     private void cancelXFling() {
-        if (masterXFlingAnim != null) {
-            masterXFlingAnim.cancel();
-        }
+        masterXFlingAnim.cancel();
     }
 
     private void cancelMasterXStickyAnim() {
-        if (masterXStickyAnim != null) {
-            masterXStickyAnim.cancel();
-        }
+        masterXStickyAnim.cancel();
     }
 
     private void cancelMasterYStickyAnim() {
-        if (masterYStickyAnim != null) {
-            masterYStickyAnim.cancel();
-        }
+        masterYStickyAnim.cancel();
     }
 
-    private class TouchListener implements View.OnTouchListener {
+    private class TouchListener implements View.OnTouchListener, FrameSource.Callback {
         private float lastDownX, lastDownY;
         private float lastViewDownX, lastViewDownY;
         private boolean dragging;
 
+        /**
+         * Latest raw touch position while dragging with {@link #estimator}, applied on the next frame.
+         */
+        private float lastTouchX, lastTouchY;
+        private long lastTouchTime;
+        private boolean dragPending;
+
         @Override
         public boolean onTouch(View v, MotionEvent event) {
             // Reset flags
             wasFlung = false;
 
+            if (gestureRecorder != null) {
+                gestureRecorder.record(event);
+            }
+
+            final int action = event.getActionMasked();
+            if (action == MotionEvent.ACTION_DOWN) {
+                acquireGestureResources();
+            } else if (!touching) {
+                // Not part of a gesture that started on this bubble.
+                return false;
+            }
+
+            if (estimator != null) {
+                if (action == MotionEvent.ACTION_UP) {
+                    samplesBeforeRelease = estimator.getOfferedSamples();
+                }
+                estimator.offer(event);
+                if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+                    // Place the bubble under the last touch before it is flung from there.
+                    applyPendingDrag();
+                }
+            } else if (action == MotionEvent.ACTION_UP) {
+                // Track the final samples before the gesture detector asks for the fling velocity.
+                movementTracker.addMovement(event);
+            }
             gestureDetector.onTouchEvent(event);
 
-            switch (event.getActionMasked()) {
+            switch (action) {
                 case MotionEvent.ACTION_DOWN:
+                    touching = true;
                     cancelAllAnim();
+                    if (gestureMetrics != null) {
+                        gestureMetrics.onGestureStart();
+                    }
+                    setMotionState(STATE_DRAGGING);
 
-                    movementTracker.onDown();
-
-                    initVelocityTracker();
+                    masterMovement.resetCounters();
+                    velocitySamples = 0;
+                    velocityComputations = 0;
+                    velocityStale = false;
 
                     dragging = false;
 
                     lastDownX = event.getRawX();
                     lastDownY = event.getRawY();
 
-                    lastViewDownX = v.getX();
-                    lastViewDownY = v.getY();
+                    lastViewDownX = masterX;
+                    lastViewDownY = masterY;
 
-                    velocityTracker.addMovement(event);
+                    if (estimator == null) {
+                        movementTracker.onDown();
+                        initVelocityTracker();
+                        velocityTracker.addMovement(event);
+                    }
                     break;
                 case MotionEvent.ACTION_MOVE:
-                    movementTracker.addMovement(event);
+                    if (estimator == null) {
+                        movementTracker.addMovement(event);
 
-                    velocityTracker.addMovement(event);
-                    velocityTracker.computeCurrentVelocity(1000);
+                        velocityTracker.addMovement(event);
+                        velocityStale = true;
+                        velocitySamples++;
+                    }
 
                     float offsetX = event.getRawX() - lastDownX;
                     float offsetY = event.getRawY() - lastDownY;
 
-                    if (Math.hypot(offsetX, offsetY) > touchSlop) {
+                    if (offsetX * offsetX + offsetY * offsetY > touchSlop * touchSlop) {
                         dragging = true;
+                        collapse();
                     }
 
                     if (dragging) {
-                        float x = lastViewDownX + offsetX;
-                        float y = lastViewDownY + offsetY;
-
-                        moveX(x, velocityTracker.getXVelocity());
-                        moveY(y, velocityTracker.getYVelocity());
+                        if (estimator != null) {
+                            // The worker's estimate is read once per frame.
+                            lastTouchX = event.getRawX();
+                            lastTouchY = event.getRawY();
+                            lastTouchTime = event.getEventTime();
+                            if (!dragPending) {
+                                dragPending = true;
+                                frameSource.postFrameCallback(this);
+                            }
+                            break;
+                        }
+                        if (touchPredictionMillis > 0 && movementTracker.predictPosition(
+                                event.getEventTime() + touchPredictionMillis, predictedTouch)) {
+                            offsetX = predictedTouch[0] - lastDownX;
+                            offsetY = predictedTouch[1] - lastDownY;
+                        }
+                        drag(lastViewDownX + offsetX, lastViewDownY + offsetY, event.getEventTime());
                     }
                     break;
                 case MotionEvent.ACTION_UP:
                 case MotionEvent.ACTION_CANCEL:
-                    movementTracker.onUp();
+                    if (estimator == null) {
+                        movementTracker.onUp();
+                    }
 
+                    touching = false;
                     dragging = false;
+                    if (inDismissZone) {
+                        inDismissZone = false;
+                        if (action == MotionEvent.ACTION_UP && dismissZone.release()) {
+                            // Stays on the zone's target while the listener dismisses it.
+                            setMotionState(STATE_SETTLING);
+                            checkIdle();
+                            break;
+                        }
+                        dismissZone.cancel();
+                    }
                     if (!wasFlung) {
                         cancelAllAnim();
-                        stickToX(0);
-                        stickToY(0);
+                        dock(0, 0);
                     }
                     break;
             }
+            if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+                // Applies a switch made during the gesture.
+                updateEstimator();
+            }
             return true;
         }
+
+        /**
+         * Places the dragged bubble from the latest touch and the worker's latest estimate.
+         */
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!dragPending || !dragging || estimator == null) {
+                dragPending = false;
+                return;
+            }
+            dragPending = false;
+            final long samples = estimator.getEstimate().read(estimateValues);
+            float touchX = lastTouchX;
+            float touchY = lastTouchY;
+            // A prediction from older samples could lag behind the touch, only use an up to date one.
+            if (samples == estimator.getOfferedSamples()
+                    && !Float.isNaN(estimateValues[GestureEstimate.PREDICTED_X])) {
+                touchX = estimateValues[GestureEstimate.PREDICTED_X];
+                touchY = estimateValues[GestureEstimate.PREDICTED_Y];
+            }
+            drag(lastViewDownX + touchX - lastDownX, lastViewDownY + touchY - lastDownY, lastTouchTime);
+        }
+
+        private void applyPendingDrag() {
+            if (dragPending) {
+                frameSource.removeFrameCallback(this);
+                doFrame(0);
+            }
+        }
+    }
+
+    /**
+     * Moves the dragged master bubble to the given position, unless it is held by the dismiss zone.
+     * The drag velocity is only computed when the bubble snaps to the zone, neither the master
+     * movement nor the chain use it while following the finger.
+     */
+    private void drag(float x, float y, long eventTime) {
+        if (dismissZone != null && dismissZone.update(x, y)) {
+            if (!inDismissZone) {
+                inDismissZone = true;
+                if (!getDragVelocity(dragVelocity)) {
+                    dragVelocity[0] = 0;
+                    dragVelocity[1] = 0;
+                }
+                snapToDismissZone(dismissZone, dragVelocity[0], dragVelocity[1]);
+            }
+        } else {
+            if (inDismissZone) {
+                // Pulled out of the zone, follow the finger again.
+                inDismissZone = false;
+                cancelAllSticky();
+            }
+            moveX(x, 0);
+            moveY(y, 0);
+            if (gestureMetrics != null) {
+                gestureMetrics.onMove(eventTime);
+            }
+        }
+    }
+
+    /**
+     * Computes the velocity of the finger dragging the master bubble, for consumers that need it
+     * live rather than once the bubble is flung. The tracker is only asked to compute when samples
+     * arrived since the last call, so consumers asking once per frame share one computation.
+     *
+     * @param out Receives the {x, y} velocity in pixels per second.
+     * @return False if the master bubble is not being touched.
+     */
+    public boolean getDragVelocity(@NonNull float[] out) {
+        if (!touching) {
+            return false;
+        }
+        if (estimator != null) {
+            estimator.getEstimate().read(estimateValues);
+            out[0] = estimateValues[GestureEstimate.X_VELOCITY];
+            out[1] = estimateValues[GestureEstimate.Y_VELOCITY];
+            return true;
+        }
+        if (velocityTracker == null) {
+            return false;
+        }
+        if (velocityStale) {
+            velocityTracker.computeCurrentVelocity(1000);
+            velocityStale = false;
+            velocityComputations++;
+        }
+        out[0] = velocityTracker.getXVelocity();
+        out[1] = velocityTracker.getYVelocity();
+        return true;
+    }
+
+    /**
+     * @return Number of drag velocity computations done in the current or last gesture.
+     */
+    public int getVelocityComputations() {
+        return velocityComputations;
+    }
+
+    /**
+     * @return Number of drag velocity computations avoided in the current or last gesture, that is
+     * moves tracked whose velocity nobody asked for.
+     */
+    public int getAvoidedVelocityComputations() {
+        return Math.max(0, velocitySamples - velocityComputations);
+    }
+
+    /**
+     * @return The movement applying the master bubble's position, exposing counters of requested
+     * updates versus frames actually applied. Counters are reset when a gesture begins.
+     */
+    @NonNull
+    public CoalescingBubbleMovement getMasterMovement() {
+        return masterMovement;
+    }
+
+    /**
+     * Sets the zone the master bubble is dismissed in when dragged onto and released. While dragged
+     * within the zone the bubble snaps to its target instead of following the finger. The zone's
+     * listener decides what dismissing means, for example removing the bubble.
+     */
+    public void setDismissZone(@Nullable DismissZone dismissZone) {
+        if (this.dismissZone != null) {
+            this.dismissZone.cancel();
+        }
+        this.dismissZone = dismissZone;
+        inDismissZone = false;
+    }
+
+    @Nullable
+    public DismissZone getDismissZone() {
+        return dismissZone;
+    }
+
+    /**
+     * Springs the master bubble onto the dismiss zone's target, keeping the drag's velocity.
+     */
+    private void snapToDismissZone(@NonNull DismissZone zone, float xVelocity, float yVelocity) {
+        cancelAllSticky();
+        // The springs are shared with docking, which may have made them critically damped.
+        xSpring.setDampingRatio(config.getSpringDampingRatio());
+        ySpring.setDampingRatio(config.getSpringDampingRatio());
+        xSpring.setStartValue(masterX)
+                .setStartVelocity(xVelocity)
+                .setFinalPosition(zone.getX());
+        ySpring.setStartValue(masterY)
+                .setStartVelocity(yVelocity)
+                .setFinalPosition(zone.getY());
+        masterXStickyAnim.start();
+        masterYStickyAnim.start();
+    }
+
+    @NonNull
+    public MovementConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * @return The targets the master bubble docks to once released, by default the left and right
+     * edges of the bounds. Targets are in the coordinates of the bubble's position.
+     */
+    @NonNull
+    public SnapTargetRegistry getSnapTargets() {
+        return snapTargets;
+    }
+
+    /**
+     * @return True while the trackers released when idle are held.
+     */
+    @VisibleForTesting
+    boolean holdsGestureResources() {
+        return movementTracker != null || velocityTracker != null;
+    }
+
+    @VisibleForTesting
+    PhysicsAnimation getXStickyAnimation() {
+        return masterXStickyAnim;
+    }
+
+    @VisibleForTesting
+    PhysicsAnimation getYStickyAnimation() {
+        return masterYStickyAnim;
+    }
+
+    @VisibleForTesting
+    float getStickyDampingRatio() {
+        return xSpring.getDampingRatio();
+    }
+
+    @VisibleForTesting
+    @Nullable
+    GestureEstimator getEstimator() {
+        return estimator;
+    }
+
+    @VisibleForTesting
+    PhysicsAnimation getXFlingAnimation() {
+        return masterXFlingAnim;
+    }
+
+    @VisibleForTesting
+    PhysicsAnimation getYFlingAnimation() {
+        return masterYFlingAnim;
+    }
+
+    @VisibleForTesting
+    Rect getBounds() {
+        return bounds;
+    }
+
+    @VisibleForTesting
+    int getMinimumFlingVelocity() {
+        return gestureListener.minimumFlingVelocity;
+    }
+
+    @VisibleForTesting
+    float getMasterX() {
+        return masterX;
+    }
+
+    @VisibleForTesting
+    float getMasterY() {
+        return masterY;
     }
 
     private void initVelocityTracker() {
@@ -292,55 +1133,61 @@ public class BubbleMovementManager implements BubbleMovement {
     }
 
     private class GestureDetectorListener extends SimpleOnGestureListener {
-        private final int minimumFlingVelocity;
+        private int minimumFlingVelocity;
+        /**
+         * Scratch buffer holding the {x, y} fling velocities, reused across flings.
+         */
+        private final float[] flingVelocities = new float[2];
 
         GestureDetectorListener() {
-            final int scaledScreenWidthDp = (Resources.getSystem().getConfiguration().screenWidthDp * 6);
-            minimumFlingVelocity = Utils.dpToPx(scaledScreenWidthDp);
+            updateMinimumFlingVelocity();
         }
 
-        @Override
-        public boolean onFling(MotionEvent downEvent, MotionEvent upEvent, float velocityX, float velocityY) {
-            float[] adjustedVelocities = movementTracker.getAdjustedVelocities(velocityX, velocityY);
+        void updateMinimumFlingVelocity() {
+            final float scaledScreenWidthDp = displayMetrics.getScreenWidthDp() * config.getMinFlingVelocityMultiplier();
+            minimumFlingVelocity = displayMetrics.dpToPx(scaledScreenWidthDp);
+        }
 
-            if (adjustedVelocities == null) {
-                float[] down = new float[]{downEvent.getRawX(), downEvent.getRawY()};
-                float[] up = new float[]{upEvent.getRawX(), upEvent.getRawY()};
-                adjustedVelocities = adjustVelocities(down, up, velocityX, velocityY);
+        @Override
+        public boolean onSingleTapUp(MotionEvent e) {
+            if (chain == null || inDismissZone) {
+                return false;
+            }
+            if (isExpanded()) {
+                collapse();
+            } else {
+                expand();
             }
-            cancelAllAnim();
-
-            adjustedVelocities = interpolateVelocities(upEvent, adjustedVelocities);
-
-            flingX(adjustedVelocities[0]);
-            flingY(adjustedVelocities[1]);
-
-            wasFlung = true;
             return true;
         }
 
-
-        private float[] interpolateVelocities(@NonNull MotionEvent upEvent, float[] adjustedVelocities) {
-            final float xBeforeRampUp = adjustedVelocities[0];
-            float xAfterRampUp = xBeforeRampUp;
-
-            // Ramp up X velocity based on screen density and where the user lifted his finger.
-            float x = upEvent.getRawX() / bounds.width();
-            if (xAfterRampUp > 0) {
-                xAfterRampUp = Math.max(xAfterRampUp, minimumFlingVelocity * (1 - x));
-            } else {
-                xAfterRampUp = -Math.max(xAfterRampUp, minimumFlingVelocity * x);
+        @Override
+        public boolean onFling(MotionEvent downEvent, MotionEvent upEvent, float velocityX, float velocityY) {
+            if (inDismissZone) {
+                // Released onto the dismiss zone, which the touch listener handles.
+                return false;
+            }
+            if (estimator != null) {
+                // Never wait for the worker on the UI thread. An estimate missing only the samples
+                // of the up event is as good as final, an older one gives way to the detector's.
+                if (estimator.getEstimate().read(estimateValues) >= samplesBeforeRelease) {
+                    flingVelocities[0] = estimateValues[GestureEstimate.X_VELOCITY];
+                    flingVelocities[1] = estimateValues[GestureEstimate.Y_VELOCITY];
+                } else {
+                    flingVelocities[0] = velocityX;
+                    flingVelocities[1] = velocityY;
+                }
+            } else if (!movementTracker.computeVelocity(flingVelocities)) {
+                flingVelocities[0] = velocityX;
+                flingVelocities[1] = velocityY;
             }
 
-            // Find out how much percent we ramped up X velocity
-            float xPercentageRampUp = xBeforeRampUp / xAfterRampUp;
-
-            // Apply the same amount of ramp up to y velocity.
-            final float yAfterRampUp = adjustedVelocities[1] + (adjustedVelocities[1] * xPercentageRampUp);
+            interpolateVelocities(upEvent.getRawX(), bounds.width(), minimumFlingVelocity, flingVelocities);
 
-            // Log.d(TAG, String.format("Initial velocity %f %f, ramped up %f %f", adjustedVelocities[0], adjustedVelocities[1], xAfterRampUp, yAfterRampUp));
+            fling(flingVelocities[0], flingVelocities[1]);
 
-            return new float[]{xAfterRampUp, yAfterRampUp};
+            wasFlung = true;
+            return true;
         }
     }
 }
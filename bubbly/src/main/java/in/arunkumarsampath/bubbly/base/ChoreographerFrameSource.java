@@ -0,0 +1,74 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.support.annotation.NonNull;
+import android.view.Choreographer;
+
+/**
+ * A {@link FrameSource} that multiplexes all pending callbacks of a thread onto a single
+ * {@link Choreographer.FrameCallback}, so any number of bubbles cost one vsync registration per
+ * frame.
+ * <p>
+ * Like {@link Choreographer}, instances are confined to the looper thread that obtained them.
+ */
+final class ChoreographerFrameSource implements FrameSource, Choreographer.FrameCallback {
+    private static final ThreadLocal<ChoreographerFrameSource> INSTANCE = new ThreadLocal<ChoreographerFrameSource>() {
+        @Override
+        protected ChoreographerFrameSource initialValue() {
+            return new ChoreographerFrameSource(Choreographer.getInstance());
+        }
+    };
+
+    private final Choreographer choreographer;
+
+    private final FrameCallbackQueue pending = new FrameCallbackQueue();
+
+    private boolean posted;
+    private boolean dispatching;
+
+    private ChoreographerFrameSource(@NonNull Choreographer choreographer) {
+        this.choreographer = choreographer;
+    }
+
+    /**
+     * @return The frame source of the calling looper thread.
+     */
+    @NonNull
+    static ChoreographerFrameSource getInstance() {
+        return INSTANCE.get();
+    }
+
+    @Override
+    public void postFrameCallback(@NonNull Callback callback) {
+        pending.post(callback);
+        if (!posted && !dispatching) {
+            posted = true;
+            choreographer.postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void removeFrameCallback(@NonNull Callback callback) {
+        pending.remove(callback);
+        if (pending.isEmpty() && posted) {
+            posted = false;
+            choreographer.removeFrameCallback(this);
+        }
+    }
+
+    /**
+     * Runs every pending callback, see {@link FrameCallbackQueue} for those posted while
+     * dispatching.
+     */
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        posted = false;
+        dispatching = true;
+        pending.dispatch(frameTimeNanos);
+        dispatching = false;
+
+        if (!pending.isEmpty()) {
+            posted = true;
+            choreographer.postFrameCallback(this);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * A {@link BubbleMovement} that batches position updates. Calls to {@link #moveX(float, float)} and
+ * {@link #moveY(float, float)} only record the latest coordinates; the position is applied to the
+ * {@link Target} once, on the next frame, with both axes in a single step.
+ * <p>
+ * This keeps independent x and y animations and the touch path from writing view properties
+ * multiple times per frame and in varying order.
+ */
+public class CoalescingBubbleMovement implements BubbleMovement, FrameSource.Callback {
+
+    /**
+     * Receives the coalesced position once per frame.
+     */
+    public interface Target {
+        void applyPosition(float x, float y);
+    }
+
+    private final FrameSource frameSource;
+    @Nullable
+    private final Target target;
+
+    private float x;
+    private float y;
+    private boolean pending;
+
+    private int requestedUpdates;
+    private int appliedFrames;
+
+    public CoalescingBubbleMovement(@NonNull FrameSource frameSource, @NonNull Target target) {
+        this.frameSource = frameSource;
+        this.target = target;
+    }
+
+    /**
+     * Constructor for subclasses that apply the position themselves by overriding
+     * {@link #onApplyPosition(float, float)}.
+     */
+    protected CoalescingBubbleMovement(@NonNull FrameSource frameSource) {
+        this.frameSource = frameSource;
+        this.target = null;
+    }
+
+    @Override
+    public void moveX(float x, float velocity) {
+        this.x = x;
+        requestUpdate();
+    }
+
+    @Override
+    public void moveY(float y, float velocity) {
+        this.y = y;
+        requestUpdate();
+    }
+
+    /**
+     * Sets the last known position without scheduling an update, for example when the target was
+     * positioned by other means.
+     */
+    public void setPosition(float x, float y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * @return The latest x requested, which may not have been applied yet.
+     */
+    public float getX() {
+        return x;
+    }
+
+    /**
+     * @return The latest y requested, which may not have been applied yet.
+     */
+    public float getY() {
+        return y;
+    }
+
+    private void requestUpdate() {
+        requestedUpdates++;
+        if (!pending) {
+            pending = true;
+            frameSource.postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (pending) {
+            pending = false;
+            appliedFrames++;
+            onApplyPosition(x, y);
+        }
+    }
+
+    /**
+     * Applies the coalesced position, at most once per frame.
+     */
+    protected void onApplyPosition(float x, float y) {
+        if (target != null) {
+            target.applyPosition(x, y);
+        }
+    }
+
+    /**
+     * Applies a pending update right away instead of waiting for the next frame.
+     */
+    void flush() {
+        if (pending) {
+            frameSource.removeFrameCallback(this);
+            doFrame(0);
+        }
+    }
+
+    /**
+     * Drops a pending update without applying it.
+     */
+    void cancel() {
+        if (pending) {
+            pending = false;
+            frameSource.removeFrameCallback(this);
+        }
+    }
+
+    /**
+     * @return Number of {@link #moveX(float, float)} and {@link #moveY(float, float)} calls since the
+     * last {@link #resetCounters()}.
+     */
+    public int getRequestedUpdates() {
+        return requestedUpdates;
+    }
+
+    /**
+     * @return Number of position updates applied to the target since the last
+     * {@link #resetCounters()}.
+     */
+    public int getAppliedFrames() {
+        return appliedFrames;
+    }
+
+    public void resetCounters() {
+        requestedUpdates = 0;
+        appliedFrames = 0;
+    }
+}
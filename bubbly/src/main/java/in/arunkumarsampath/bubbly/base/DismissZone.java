@@ -0,0 +1,144 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.support.annotation.Nullable;
+
+/**
+ * A magnetic target that dismisses a bubble released onto it, in the same coordinates as the
+ * bubble's position. A dragged bubble enters the zone within {@link #getRadius()} of the target
+ * and only leaves it again beyond a slightly larger radius, so it does not flicker in and out
+ * when the finger lingers near the border.
+ * <p>
+ * {@link #update(float, float)} runs for every touch sample of a drag, it compares squared
+ * distances and does not allocate.
+ */
+public final class DismissZone {
+    /**
+     * The exit radius relative to the enter radius.
+     */
+    private static final float EXIT_RADIUS_FACTOR = 1.25f;
+
+    public interface Listener {
+        /**
+         * The dragged bubble entered the zone and is snapping to its target.
+         */
+        void onEnterDismissZone();
+
+        /**
+         * The dragged bubble left the zone, or the gesture was cancelled while inside it.
+         */
+        void onExitDismissZone();
+
+        /**
+         * The bubble was released inside the zone.
+         */
+        void onDismiss();
+    }
+
+    private float x;
+    private float y;
+    private final float radius;
+    private final float radiusSquared;
+    private final float exitRadiusSquared;
+
+    private boolean inside;
+
+    @Nullable
+    private Listener listener;
+
+    /**
+     * @param x      The x position a bubble snaps to inside the zone.
+     * @param y      The y position a bubble snaps to inside the zone.
+     * @param radius Distance from the target within which a dragged bubble enters the zone.
+     */
+    public DismissZone(float x, float y, float radius) {
+        if (radius <= 0) {
+            throw new IllegalArgumentException("Radius must be positive: " + radius);
+        }
+        this.x = x;
+        this.y = y;
+        this.radius = radius;
+        radiusSquared = radius * radius;
+        final float exitRadius = radius * EXIT_RADIUS_FACTOR;
+        exitRadiusSquared = exitRadius * exitRadius;
+    }
+
+    public void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Moves the target, for example after the bounds changed.
+     */
+    public void setPosition(float x, float y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    public float getX() {
+        return x;
+    }
+
+    public float getY() {
+        return y;
+    }
+
+    public float getRadius() {
+        return radius;
+    }
+
+    public boolean isInside() {
+        return inside;
+    }
+
+    /**
+     * Updates the zone with the position the bubble is dragged to, notifying the listener when
+     * the bubble enters or leaves the zone.
+     *
+     * @return True if the bubble is inside the zone.
+     */
+    public boolean update(float bubbleX, float bubbleY) {
+        final float dx = bubbleX - x;
+        final float dy = bubbleY - y;
+        final float distanceSquared = dx * dx + dy * dy;
+        if (!inside && distanceSquared <= radiusSquared) {
+            inside = true;
+            if (listener != null) {
+                listener.onEnterDismissZone();
+            }
+        } else if (inside && distanceSquared > exitRadiusSquared) {
+            inside = false;
+            if (listener != null) {
+                listener.onExitDismissZone();
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Ends the drag, dismissing the bubble if it is inside the zone.
+     *
+     * @return True if the bubble was dismissed.
+     */
+    public boolean release() {
+        if (!inside) {
+            return false;
+        }
+        inside = false;
+        if (listener != null) {
+            listener.onDismiss();
+        }
+        return true;
+    }
+
+    /**
+     * Ends the drag without dismissing, notifying the listener if the bubble was inside the zone.
+     */
+    public void cancel() {
+        if (inside) {
+            inside = false;
+            if (listener != null) {
+                listener.onExitDismissZone();
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Lays out the bubbles of an expanded stack on a grid next to the master bubble. Every bubble gets
+ * a square slot as large as the largest bubble plus a gap, so no two bubbles overlap whatever their
+ * sizes.
+ * <p>
+ * The first row starts beside the master bubble and runs away from the closer side of the range,
+ * further rows wrap below it, or above it when the master bubble is in the lower half. A stack too
+ * large for the range at that spacing gets smaller slots instead of running off screen, letting its
+ * bubbles overlap. Targets are written into caller supplied arrays so laying out allocates nothing.
+ */
+final class ExpandedLayout {
+
+    private ExpandedLayout() {
+    }
+
+    /**
+     * The range is that of the bubbles' positions, for example the bounds shrunk by the size of the
+     * largest bubble, so every target lies within it.
+     *
+     * @param minX    Left of the range the bubbles are laid out in.
+     * @param minY    Top of the range.
+     * @param maxX    Right of the range.
+     * @param maxY    Bottom of the range.
+     * @param masterX Position of the master bubble, which stays in place.
+     * @param masterY Position of the master bubble.
+     * @param slot    Distance between neighbouring bubbles, at least the size of the largest one.
+     * @param count   Number of bubbles to place besides the master bubble.
+     * @param outX    Receives the x position of each bubble.
+     * @param outY    Receives the y position of each bubble.
+     * @return Number of rows used, including the master bubble's.
+     */
+    static int layoutRows(float minX, float minY, float maxX, float maxY, float masterX, float masterY,
+                          float slot, int count, @NonNull float[] outX, @NonNull float[] outY) {
+        if (slot <= 0) {
+            throw new IllegalArgumentException("Slot must be positive: " + slot);
+        }
+        final boolean rightwards = masterX <= (minX + maxX) / 2;
+        final boolean downwards = masterY <= (minY + maxY) / 2;
+        final float room = Math.max(0, rightwards ? maxX - masterX : masterX - minX);
+        final float verticalRoom = Math.max(0, downwards ? maxY - masterY : masterY - minY);
+
+        // The master bubble takes the first column, a row holds at least one more bubble.
+        final int total = count + 1;
+        int columns = Math.max(2, (int) (room / slot) + 1);
+        if (slot > room || columns * ((int) (verticalRoom / slot) + 1) < total) {
+            // Find the largest slot the whole stack fits in, trying every number of rows.
+            float fittingSlot = 0;
+            int fittingColumns = 2;
+            for (int rows = 1; rows <= total; rows++) {
+                final int rowColumns = Math.max(2, (total + rows - 1) / rows);
+                float rowSlot = Math.min(slot, room / (rowColumns - 1));
+                if (rows > 1) {
+                    rowSlot = Math.min(rowSlot, verticalRoom / (rows - 1));
+                }
+                if (rowSlot > fittingSlot) {
+                    fittingSlot = rowSlot;
+                    fittingColumns = rowColumns;
+                }
+            }
+            slot = fittingSlot;
+            columns = fittingColumns;
+        }
+        final float xStep = rightwards ? slot : -slot;
+        final float yStep = downwards ? slot : -slot;
+
+        int row = 0;
+        int column = 1;
+        for (int i = 0; i < count; i++) {
+            outX[i] = masterX + column * xStep;
+            outY[i] = masterY + row * yStep;
+            if (++column == columns) {
+                column = 0;
+                row++;
+            }
+        }
+        return column == 0 ? row : row + 1;
+    }
+}
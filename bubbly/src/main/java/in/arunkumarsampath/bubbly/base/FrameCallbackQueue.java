@@ -0,0 +1,165 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * The callbacks a {@link FrameSource} runs on its next frame. Dispatching a frame swaps the pending
+ * callbacks with a second, reused list and walks it once, so a frame takes time linear in the
+ * number of callbacks and allocates nothing once warmed up.
+ * <p>
+ * Every queued callback has a {@link Slot} remembering where it is queued, found through an
+ * identity map, so posting and removing a callback take constant time and never search a list.
+ * Removed callbacks leave a null behind in their list, skipped when dispatching.
+ * <p>
+ * Callbacks posted while dispatching also run in the frame being dispatched unless they already ran
+ * in it, so an animation step and the position update it posts land in the same frame, while a
+ * callback re-posting itself waits for the next one.
+ */
+final class FrameCallbackQueue {
+    private final IdentityHashMap<FrameSource.Callback, Slot> slots = new IdentityHashMap<>();
+    /**
+     * Slots no longer queued, reused so queueing a callback again allocates nothing.
+     */
+    private final ArrayList<Slot> recycled = new ArrayList<>();
+
+    private ArrayList<Slot> pending = new ArrayList<>();
+    /**
+     * Number of non null slots in {@link #pending}.
+     */
+    private int pendingCount;
+    /**
+     * Slots of the frame being dispatched, null where removed before their turn.
+     */
+    private ArrayList<Slot> dispatching = new ArrayList<>();
+    /**
+     * Index of the callback running in {@link #dispatching}, -1 outside of {@link #dispatch(long)}.
+     */
+    private int cursor = -1;
+
+    void post(@NonNull FrameSource.Callback callback) {
+        Slot slot = slots.get(callback);
+        if (slot == null) {
+            slot = obtainSlot(callback);
+        }
+        if (cursor >= 0) {
+            if (slot.frameIndex >= 0 && !slot.ran) {
+                // Still to run in this frame.
+                return;
+            }
+            if (slot.frameIndex < 0) {
+                slot.frameIndex = dispatching.size();
+                dispatching.add(slot);
+                return;
+            }
+        }
+        if (slot.pendingIndex < 0) {
+            slot.pendingIndex = pending.size();
+            pending.add(slot);
+            pendingCount++;
+        }
+    }
+
+    void remove(@NonNull FrameSource.Callback callback) {
+        final Slot slot = slots.get(callback);
+        if (slot == null) {
+            return;
+        }
+        if (slot.pendingIndex >= 0) {
+            pending.set(slot.pendingIndex, null);
+            slot.pendingIndex = -1;
+            if (--pendingCount == 0) {
+                pending.clear();
+            }
+        }
+        if (slot.frameIndex >= 0 && !slot.ran) {
+            dispatching.set(slot.frameIndex, null);
+            slot.frameIndex = -1;
+        }
+        // A slot that already ran this frame is released once the frame is dispatched.
+        if (slot.frameIndex < 0) {
+            releaseSlot(slot);
+        }
+    }
+
+    /**
+     * @return True if no callbacks wait for a frame, not counting those of a frame being dispatched.
+     */
+    boolean isEmpty() {
+        return pendingCount == 0;
+    }
+
+    /**
+     * Runs the pending callbacks and those posted while they run.
+     */
+    void dispatch(long frameTimeNanos) {
+        final ArrayList<Slot> frame = pending;
+        pending = dispatching;
+        pendingCount = 0;
+        dispatching = frame;
+        for (int i = 0; i < frame.size(); i++) {
+            final Slot slot = frame.get(i);
+            if (slot != null) {
+                slot.pendingIndex = -1;
+                slot.frameIndex = i;
+            }
+        }
+        for (cursor = 0; cursor < frame.size(); cursor++) {
+            final Slot slot = frame.get(cursor);
+            if (slot != null) {
+                slot.ran = true;
+                slot.callback.doFrame(frameTimeNanos);
+            }
+        }
+        cursor = -1;
+        for (int i = 0; i < frame.size(); i++) {
+            final Slot slot = frame.get(i);
+            if (slot != null) {
+                slot.frameIndex = -1;
+                slot.ran = false;
+                if (slot.pendingIndex < 0) {
+                    releaseSlot(slot);
+                }
+            }
+        }
+        frame.clear();
+    }
+
+    @NonNull
+    private Slot obtainSlot(@NonNull FrameSource.Callback callback) {
+        final int size = recycled.size();
+        final Slot slot = size > 0 ? recycled.remove(size - 1) : new Slot();
+        slot.callback = callback;
+        slots.put(callback, slot);
+        return slot;
+    }
+
+    private void releaseSlot(@NonNull Slot slot) {
+        slots.remove(slot.callback);
+        slot.callback = null;
+        recycled.add(slot);
+    }
+
+    /**
+     * Where a callback is queued.
+     */
+    private static final class Slot {
+        @Nullable
+        FrameSource.Callback callback;
+        /**
+         * Index in {@link #pending}, -1 if not pending.
+         */
+        int pendingIndex = -1;
+        /**
+         * Index in {@link #dispatching} while its frame is dispatched, -1 otherwise.
+         */
+        int frameIndex = -1;
+        /**
+         * True once it ran in the frame being dispatched.
+         */
+        boolean ran;
+    }
+}
@@ -0,0 +1,33 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Source of display frames used to drive bubble motion. On device this is backed by the
+ * {@link android.view.Choreographer}; tests can supply a manual implementation that steps frames
+ * deterministically.
+ */
+public interface FrameSource {
+
+    /**
+     * Callback invoked once per posted frame.
+     */
+    interface Callback {
+        /**
+         * @param frameTimeNanos The time at which the frame started rendering, in
+         *                       {@link System#nanoTime()} base.
+         */
+        void doFrame(long frameTimeNanos);
+    }
+
+    /**
+     * Posts {@code callback} to run on the next frame. Posting a callback that is already pending
+     * has no effect, so it runs at most once per frame.
+     */
+    void postFrameCallback(@NonNull Callback callback);
+
+    /**
+     * Removes a pending callback, if any.
+     */
+    void removeFrameCallback(@NonNull Callback callback);
+}
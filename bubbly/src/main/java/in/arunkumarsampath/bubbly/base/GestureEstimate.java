@@ -0,0 +1,79 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.support.annotation.NonNull;
+
+/**
+ * The latest velocity and predicted position of a gesture, published by one writer thread and read
+ * by another without locks or allocation.
+ * <p>
+ * Works as a sequence lock: the writer makes {@link #version} odd while it updates the values and
+ * even again once done, a reader retries until it read the same even version before and after the
+ * values. All fields are volatile so the values can not be reordered around the version reads.
+ */
+final class GestureEstimate {
+    static final int X_VELOCITY = 0;
+    static final int Y_VELOCITY = 1;
+    static final int PREDICTED_X = 2;
+    static final int PREDICTED_Y = 3;
+    /**
+     * Size of the array {@link #read(float[])} fills.
+     */
+    static final int SIZE = 4;
+
+    private volatile int version;
+
+    private volatile long samples;
+    private volatile float xVelocity;
+    private volatile float yVelocity;
+    private volatile float predictedX;
+    private volatile float predictedY;
+
+    /**
+     * Called by the single writer thread.
+     *
+     * @param samples    Number of samples the values account for.
+     * @param predictedX Predicted raw x of the finger, NaN if there is no prediction.
+     * @param predictedY Predicted raw y of the finger, NaN if there is no prediction.
+     */
+    void publish(long samples, float xVelocity, float yVelocity, float predictedX, float predictedY) {
+        final int start = version;
+        version = start + 1;
+        this.samples = samples;
+        this.xVelocity = xVelocity;
+        this.yVelocity = yVelocity;
+        this.predictedX = predictedX;
+        this.predictedY = predictedY;
+        version = start + 2;
+    }
+
+    /**
+     * Reads a consistent set of values.
+     *
+     * @param out Receives the values at {@link #X_VELOCITY}, {@link #Y_VELOCITY},
+     *            {@link #PREDICTED_X} and {@link #PREDICTED_Y}.
+     * @return Number of samples the values account for, 0 if nothing was published yet.
+     */
+    long read(@NonNull float[] out) {
+        while (true) {
+            final int start = version;
+            if ((start & 1) == 0) {
+                final long samples = this.samples;
+                out[X_VELOCITY] = xVelocity;
+                out[Y_VELOCITY] = yVelocity;
+                out[PREDICTED_X] = predictedX;
+                out[PREDICTED_Y] = predictedY;
+                if (version == start) {
+                    return samples;
+                }
+            }
+            // The writer is half way through, it only has a few fields left to write.
+        }
+    }
+
+    /**
+     * @return Number of samples the latest values account for.
+     */
+    long getSamples() {
+        return samples;
+    }
+}
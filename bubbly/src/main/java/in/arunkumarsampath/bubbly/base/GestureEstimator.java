@@ -0,0 +1,220 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+import android.view.MotionEvent;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Estimates the velocity and the predicted position of the finger on a worker thread, off the UI
+ * thread that delivers the touch events.
+ * <p>
+ * The UI thread copies each event's samples into a {@link TouchSampleRing}. The worker drains the
+ * ring into its own {@link MovementTracker}, fits the velocity and prediction and publishes them
+ * to a {@link GestureEstimate} the UI thread reads, for example once per frame. The worker parks
+ * while there are no samples, and nothing is allocated per sample on either thread.
+ */
+final class GestureEstimator implements Runnable {
+    static final int DEFAULT_CAPACITY = 256;
+
+    private final TouchSampleRing ring;
+    private final GestureEstimate estimate = new GestureEstimate();
+
+    private volatile boolean running;
+    private volatile long predictionMillis;
+    private volatile long velocityWindowMillis = MovementTracker.DEFAULT_VELOCITY_WINDOW_MILLIS;
+    private Thread thread;
+
+    /**
+     * Samples the producer could not add because the worker fell behind.
+     */
+    private int droppedSamples;
+
+    // Worker thread state.
+    private final TouchSampleRing.Sample sample = new TouchSampleRing.Sample();
+    private final float[] velocity = new float[2];
+    private final float[] prediction = new float[2];
+
+    GestureEstimator() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    GestureEstimator(int capacity) {
+        ring = new TouchSampleRing(capacity);
+    }
+
+    /**
+     * Starts the worker thread.
+     */
+    void start() {
+        if (thread != null) {
+            throw new IllegalStateException("Already started");
+        }
+        running = true;
+        thread = new Thread(this, "bubbly-gesture");
+        thread.start();
+    }
+
+    /**
+     * Stops the worker thread and waits for it to finish.
+     */
+    void stop() {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        thread = null;
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param predictionMillis How far ahead of the newest sample to predict the finger, 0 to not
+     *                         predict.
+     */
+    void setPredictionMillis(long predictionMillis) {
+        this.predictionMillis = predictionMillis;
+    }
+
+    void setVelocityWindowMillis(long windowMillis) {
+        velocityWindowMillis = windowMillis;
+    }
+
+    @NonNull
+    GestureEstimate getEstimate() {
+        return estimate;
+    }
+
+    /**
+     * @return Number of samples offered so far, the estimate is up to date once it accounts for as
+     * many.
+     */
+    long getOfferedSamples() {
+        return ring.getWrittenCount();
+    }
+
+    int getDroppedSamples() {
+        return droppedSamples;
+    }
+
+    /**
+     * Called on the UI thread to hand over the event and its historical samples, in raw coordinates.
+     */
+    void offer(@NonNull MotionEvent event) {
+        final int kind;
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                kind = TouchSampleRing.KIND_DOWN;
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                kind = TouchSampleRing.KIND_UP;
+                break;
+            default:
+                kind = TouchSampleRing.KIND_MOVE;
+                break;
+        }
+        final float offsetX = event.getRawX() - event.getX();
+        final float offsetY = event.getRawY() - event.getY();
+        final int historySize = event.getHistorySize();
+        for (int h = 0; h < historySize; h++) {
+            offer(TouchSampleRing.KIND_MOVE, event.getHistoricalEventTime(h),
+                    event.getHistoricalX(h) + offsetX, event.getHistoricalY(h) + offsetY);
+        }
+        offer(kind, event.getEventTime(), event.getRawX(), event.getRawY());
+        wakeWorker();
+    }
+
+    /**
+     * Called on the UI thread to hand over a single sample, {@link #wakeWorker()} must follow.
+     */
+    void offer(int kind, long time, float x, float y) {
+        if (!ring.offer(kind, time, x, y)) {
+            droppedSamples++;
+        }
+    }
+
+    void wakeWorker() {
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Waits until the estimate accounts for every sample offered. The UI thread never waits, it
+     * reads whatever estimate was published last.
+     *
+     * @return False if the worker did not catch up within {@code timeoutNanos}.
+     */
+    @VisibleForTesting
+    boolean awaitEstimate(long timeoutNanos) {
+        final long target = ring.getWrittenCount();
+        final long deadline = System.nanoTime() + timeoutNanos;
+        while (estimate.getSamples() < target) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            Thread.yield();
+        }
+        return true;
+    }
+
+    @Override
+    public void run() {
+        final MovementTracker tracker = MovementTracker.obtain();
+        try {
+            while (running) {
+                if (!drain(tracker)) {
+                    LockSupport.park(this);
+                }
+            }
+        } finally {
+            tracker.recycle();
+        }
+    }
+
+    /**
+     * Moves every available sample into the tracker and publishes a new estimate.
+     *
+     * @return False if there were no samples.
+     */
+    boolean drain(@NonNull MovementTracker tracker) {
+        boolean drained = false;
+        while (ring.poll(sample)) {
+            if (sample.kind == TouchSampleRing.KIND_DOWN) {
+                tracker.onDown();
+            }
+            tracker.addMovement(sample.x, sample.y, sample.time);
+            drained = true;
+        }
+        if (!drained) {
+            return false;
+        }
+        if (tracker.getVelocityWindowMillis() != velocityWindowMillis) {
+            tracker.setVelocityWindowMillis(velocityWindowMillis);
+        }
+        if (!tracker.computeVelocity(velocity)) {
+            velocity[0] = 0;
+            velocity[1] = 0;
+        }
+        final long horizon = predictionMillis;
+        if (horizon <= 0 || !tracker.predictPosition(sample.time + horizon, prediction)) {
+            prediction[0] = Float.NaN;
+            prediction[1] = Float.NaN;
+        }
+        estimate.publish(ring.getReadCount(), velocity[0], velocity[1], prediction[0], prediction[1]);
+        return true;
+    }
+}
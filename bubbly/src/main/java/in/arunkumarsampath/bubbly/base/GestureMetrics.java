@@ -0,0 +1,331 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.os.Debug;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Records frame timing of bubble gestures, from the touch down until the bubbles are idle again,
+ * and reports a {@link Snapshot} of each gesture to a {@link Listener}.
+ * <p>
+ * While a gesture is recorded a {@link FrameSource.Callback} is posted every frame to measure the
+ * interval between frames. Intervals are counted into a preallocated histogram and the snapshot is
+ * reused for every gesture, so nothing is allocated per frame or per gesture.
+ */
+public final class GestureMetrics implements FrameSource.Callback {
+    /**
+     * Width of a frame interval histogram bucket, in milliseconds.
+     */
+    public static final int HISTOGRAM_BUCKET_MILLIS = 1;
+    /**
+     * Number of frame interval histogram buckets. The last bucket counts every interval at or
+     * beyond its start.
+     */
+    public static final int HISTOGRAM_BUCKET_COUNT = 101;
+
+    /**
+     * A frame arriving later than this many frame intervals after the previous one missed at least
+     * one vsync.
+     */
+    private static final float JANK_INTERVAL_FACTOR = 1.5f;
+
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    public interface Listener {
+        /**
+         * Called on the main thread once the bubbles are idle after a gesture.
+         *
+         * @param snapshot The gesture's metrics. The instance is reused for the next gesture, copy
+         *                 what is needed before returning.
+         */
+        void onGestureMetrics(@NonNull Snapshot snapshot);
+    }
+
+    /**
+     * Metrics of a single gesture.
+     */
+    public static final class Snapshot {
+        private final int[] frameIntervalHistogram = new int[HISTOGRAM_BUCKET_COUNT];
+        private float touchToFirstMoveMillis;
+        private int dragFrames;
+        private int flingFrames;
+        private int settleFrames;
+        private int jankyFrames;
+        private int droppedFrames;
+        private float settleDurationMillis;
+        private long allocationCount;
+
+        Snapshot() {
+            reset();
+        }
+
+        private void reset() {
+            Arrays.fill(frameIntervalHistogram, 0);
+            touchToFirstMoveMillis = -1;
+            dragFrames = 0;
+            flingFrames = 0;
+            settleFrames = 0;
+            jankyFrames = 0;
+            droppedFrames = 0;
+            settleDurationMillis = 0;
+            allocationCount = -1;
+        }
+
+        /**
+         * @return Time from the touch sample that first moved the bubble to the frame applying it,
+         * or -1 if the bubble was not dragged.
+         */
+        public float getTouchToFirstMoveMillis() {
+            return touchToFirstMoveMillis;
+        }
+
+        /**
+         * @return Frames rendered while the bubble was touched.
+         */
+        public int getDragFrames() {
+            return dragFrames;
+        }
+
+        /**
+         * @return Frames rendered while the bubble was flung.
+         */
+        public int getFlingFrames() {
+            return flingFrames;
+        }
+
+        /**
+         * @return Frames rendered while the bubbles sprang to where they dock.
+         */
+        public int getSettleFrames() {
+            return settleFrames;
+        }
+
+        /**
+         * @return Frames that arrived late enough to have missed at least one vsync.
+         */
+        public int getJankyFrames() {
+            return jankyFrames;
+        }
+
+        /**
+         * @return Vsyncs missed over the whole gesture.
+         */
+        public int getDroppedFrames() {
+            return droppedFrames;
+        }
+
+        /**
+         * @return Time from the first frame after the bubble was released until it was at rest,
+         * 0 if it was never released into motion.
+         */
+        public float getSettleDurationMillis() {
+            return settleDurationMillis;
+        }
+
+        /**
+         * @return Objects allocated on the main thread during the gesture, or -1 if allocation
+         * counting was not enabled with {@link GestureMetrics#setAllocationCountingEnabled(boolean)}.
+         */
+        public long getAllocationCount() {
+            return allocationCount;
+        }
+
+        /**
+         * @return Number of frame intervals counted into {@code bucket}, each
+         * {@link #HISTOGRAM_BUCKET_MILLIS} wide.
+         */
+        public int getFrameIntervalCount(int bucket) {
+            return frameIntervalHistogram[bucket];
+        }
+
+        /**
+         * Copies the frame interval histogram into {@code out}, which must hold at least
+         * {@link #HISTOGRAM_BUCKET_COUNT} values.
+         */
+        public void getFrameIntervalHistogram(@NonNull int[] out) {
+            System.arraycopy(frameIntervalHistogram, 0, out, 0, HISTOGRAM_BUCKET_COUNT);
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{" +
+                    "touchToFirstMoveMillis=" + touchToFirstMoveMillis +
+                    ", dragFrames=" + dragFrames +
+                    ", flingFrames=" + flingFrames +
+                    ", settleFrames=" + settleFrames +
+                    ", jankyFrames=" + jankyFrames +
+                    ", droppedFrames=" + droppedFrames +
+                    ", settleDurationMillis=" + settleDurationMillis +
+                    ", allocationCount=" + allocationCount +
+                    '}';
+        }
+    }
+
+    private final FrameSource frameSource;
+    private final long frameIntervalNanos;
+    private final Snapshot snapshot = new Snapshot();
+
+    @Nullable
+    private Listener listener;
+    private boolean countAllocations;
+
+    private boolean recording;
+    @BubbleMovementManager.MotionState
+    private int motionState = BubbleMovementManager.STATE_IDLE;
+    private long lastFrameTimeNanos;
+    /**
+     * Event time of the touch sample that first moved the bubble, until a frame applied it.
+     */
+    private long firstMoveTimeNanos;
+    private long settleStartNanos;
+    private long startAllocationCount;
+
+    /**
+     * @param frameIntervalNanos The display's expected interval between frames.
+     */
+    GestureMetrics(@NonNull FrameSource frameSource, long frameIntervalNanos) {
+        if (frameIntervalNanos <= 0) {
+            throw new IllegalArgumentException("Frame interval must be positive: " + frameIntervalNanos);
+        }
+        this.frameSource = frameSource;
+        this.frameIntervalNanos = frameIntervalNanos;
+    }
+
+    public void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Counts the objects allocated on the main thread during each gesture, using the platform's
+     * allocation counting which slows down every allocation of the process while enabled. Meant
+     * for debug builds and benchmarks.
+     */
+    @SuppressWarnings("deprecation")
+    public void setAllocationCountingEnabled(boolean enabled) {
+        if (countAllocations == enabled) {
+            return;
+        }
+        countAllocations = enabled;
+        if (enabled) {
+            Debug.startAllocCounting();
+        } else {
+            Debug.stopAllocCounting();
+        }
+    }
+
+    public boolean isAllocationCountingEnabled() {
+        return countAllocations;
+    }
+
+    boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Starts recording a gesture, dropping one still being recorded.
+     */
+    @SuppressWarnings("deprecation")
+    void onGestureStart() {
+        snapshot.reset();
+        recording = true;
+        motionState = BubbleMovementManager.STATE_DRAGGING;
+        lastFrameTimeNanos = -1;
+        firstMoveTimeNanos = -1;
+        settleStartNanos = -1;
+        if (countAllocations) {
+            startAllocationCount = Debug.getThreadAllocCount();
+        }
+        frameSource.postFrameCallback(this);
+    }
+
+    /**
+     * A touch sample moved the bubble.
+     *
+     * @param eventTimeMillis The sample's time in {@link android.os.SystemClock#uptimeMillis()} base.
+     */
+    void onMove(long eventTimeMillis) {
+        if (recording && snapshot.touchToFirstMoveMillis < 0 && firstMoveTimeNanos < 0) {
+            firstMoveTimeNanos = eventTimeMillis * NANOS_PER_MILLI;
+        }
+    }
+
+    /**
+     * Follows the manager's motion state and reports the gesture once it is idle.
+     */
+    @SuppressWarnings("deprecation")
+    void onMotionStateChanged(@BubbleMovementManager.MotionState int state) {
+        if (!recording) {
+            return;
+        }
+        motionState = state;
+        if (state != BubbleMovementManager.STATE_IDLE) {
+            return;
+        }
+        recording = false;
+        frameSource.removeFrameCallback(this);
+        if (settleStartNanos >= 0) {
+            snapshot.settleDurationMillis = (float) (lastFrameTimeNanos - settleStartNanos) / NANOS_PER_MILLI;
+        }
+        if (countAllocations) {
+            snapshot.allocationCount = Debug.getThreadAllocCount() - startAllocationCount;
+        }
+        if (listener != null) {
+            listener.onGestureMetrics(snapshot);
+        }
+    }
+
+    /**
+     * Drops the gesture being recorded without reporting it.
+     */
+    void cancel() {
+        recording = false;
+        frameSource.removeFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!recording) {
+            return;
+        }
+        if (lastFrameTimeNanos >= 0) {
+            recordInterval(frameTimeNanos - lastFrameTimeNanos);
+        }
+        lastFrameTimeNanos = frameTimeNanos;
+
+        if (firstMoveTimeNanos >= 0) {
+            snapshot.touchToFirstMoveMillis = Math.max(0f, (float) (frameTimeNanos - firstMoveTimeNanos) / NANOS_PER_MILLI);
+            firstMoveTimeNanos = -1;
+        }
+
+        switch (motionState) {
+            case BubbleMovementManager.STATE_DRAGGING:
+                snapshot.dragFrames++;
+                break;
+            case BubbleMovementManager.STATE_FLINGING:
+                snapshot.flingFrames++;
+                break;
+            case BubbleMovementManager.STATE_SETTLING:
+                snapshot.settleFrames++;
+                break;
+            case BubbleMovementManager.STATE_IDLE:
+                break;
+        }
+        if (motionState != BubbleMovementManager.STATE_DRAGGING && settleStartNanos < 0) {
+            settleStartNanos = frameTimeNanos;
+        }
+
+        frameSource.postFrameCallback(this);
+    }
+
+    private void recordInterval(long intervalNanos) {
+        final int bucket = (int) Math.min(HISTOGRAM_BUCKET_COUNT - 1,
+                intervalNanos / (HISTOGRAM_BUCKET_MILLIS * NANOS_PER_MILLI));
+        snapshot.frameIntervalHistogram[Math.max(0, bucket)]++;
+        if (intervalNanos > JANK_INTERVAL_FACTOR * frameIntervalNanos) {
+            snapshot.jankyFrames++;
+            snapshot.droppedFrames += Math.round((float) intervalNanos / frameIntervalNanos) - 1;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.support.annotation.NonNull;
+import android.view.MotionEvent;
+
+import java.util.Arrays;
+
+/**
+ * Captures the touch events delivered to a bubble, including the historical samples batched into
+ * them, so they can be saved as a {@link GestureRecording} and replayed later. Set it on a manager
+ * with {@link BubbleMovementManager#setGestureRecorder(GestureRecorder)}.
+ * <p>
+ * Only the first pointer is recorded, in raw screen coordinates. Samples are kept in primitive
+ * arrays that grow as needed, recording an event allocates only when they are full.
+ */
+public final class GestureRecorder {
+    private static final int INITIAL_EVENT_CAPACITY = 64;
+    private static final int INITIAL_SAMPLE_CAPACITY = 256;
+
+    private int[] actions = new int[INITIAL_EVENT_CAPACITY];
+    private long[] eventTimes = new long[INITIAL_EVENT_CAPACITY];
+    private int[] sampleStarts = new int[INITIAL_EVENT_CAPACITY + 1];
+    private int eventCount;
+
+    private long[] sampleTimes = new long[INITIAL_SAMPLE_CAPACITY];
+    private float[] sampleXs = new float[INITIAL_SAMPLE_CAPACITY];
+    private float[] sampleYs = new float[INITIAL_SAMPLE_CAPACITY];
+    private int sampleCount;
+
+    /**
+     * Appends the event and its historical samples.
+     */
+    public void record(@NonNull MotionEvent event) {
+        // Historical samples are only reported in view coordinates, the offset converts them to
+        // raw coordinates like the current sample.
+        final float offsetX = event.getRawX() - event.getX();
+        final float offsetY = event.getRawY() - event.getY();
+        startEvent(event.getActionMasked());
+        final int historySize = event.getHistorySize();
+        for (int h = 0; h < historySize; h++) {
+            addSample(event.getHistoricalEventTime(h),
+                    event.getHistoricalX(h) + offsetX,
+                    event.getHistoricalY(h) + offsetY);
+        }
+        addSample(event.getEventTime(), event.getRawX(), event.getRawY());
+    }
+
+    /**
+     * Starts an event, its samples follow through {@link #addSample(long, float, float)}.
+     */
+    void startEvent(int action) {
+        if (eventCount == actions.length) {
+            final int capacity = 2 * actions.length;
+            actions = Arrays.copyOf(actions, capacity);
+            eventTimes = Arrays.copyOf(eventTimes, capacity);
+            sampleStarts = Arrays.copyOf(sampleStarts, capacity + 1);
+        }
+        actions[eventCount] = action;
+        sampleStarts[eventCount] = sampleCount;
+        eventCount++;
+        sampleStarts[eventCount] = sampleCount;
+    }
+
+    /**
+     * Adds a sample, in raw coordinates, to the event last started.
+     */
+    void addSample(long time, float rawX, float rawY) {
+        if (eventCount == 0) {
+            throw new IllegalStateException("No event started");
+        }
+        if (sampleCount == sampleTimes.length) {
+            final int capacity = 2 * sampleTimes.length;
+            sampleTimes = Arrays.copyOf(sampleTimes, capacity);
+            sampleXs = Arrays.copyOf(sampleXs, capacity);
+            sampleYs = Arrays.copyOf(sampleYs, capacity);
+        }
+        sampleTimes[sampleCount] = time;
+        sampleXs[sampleCount] = rawX;
+        sampleYs[sampleCount] = rawY;
+        sampleCount++;
+        sampleStarts[eventCount] = sampleCount;
+        eventTimes[eventCount - 1] = time;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Drops everything recorded so far, keeping the allocated capacity.
+     */
+    public void clear() {
+        eventCount = 0;
+        sampleCount = 0;
+        sampleStarts[0] = 0;
+    }
+
+    /**
+     * @return A copy of the events recorded so far.
+     */
+    @NonNull
+    public GestureRecording toRecording() {
+        return new GestureRecording(Arrays.copyOf(actions, eventCount), Arrays.copyOf(eventTimes, eventCount),
+                Arrays.copyOf(sampleStarts, eventCount + 1), Arrays.copyOf(sampleTimes, sampleCount),
+                Arrays.copyOf(sampleXs, sampleCount), Arrays.copyOf(sampleYs, sampleCount));
+    }
+}
@@ -0,0 +1,242 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.support.annotation.NonNull;
+import android.view.MotionEvent;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * An immutable stream of single pointer touch events, each with the samples batched into it, as
+ * captured by a {@link GestureRecorder}. Recordings can be written to and read from a compact
+ * binary trace and replayed as {@link MotionEvent}s, to keep a corpus of real gestures that tests
+ * feed through the movement pipeline.
+ * <p>
+ * The trace starts with a magic number and a version. Times are stored as variable length deltas
+ * in milliseconds and raw coordinates as variable length deltas in {@link #COORDINATE_SCALE}ths of
+ * a pixel, so a typical sample takes four to six bytes.
+ */
+public final class GestureRecording {
+    /**
+     * Coordinates are stored with this many steps per pixel.
+     */
+    public static final int COORDINATE_SCALE = 16;
+
+    private static final int MAGIC = 0x42424754;
+    private static final int VERSION = 1;
+
+    private final int[] actions;
+    private final long[] eventTimes;
+    /**
+     * Index of each event's first sample, with one extra entry holding the sample count.
+     */
+    private final int[] sampleStarts;
+    private final long[] sampleTimes;
+    private final float[] sampleXs;
+    private final float[] sampleYs;
+
+    GestureRecording(@NonNull int[] actions, @NonNull long[] eventTimes, @NonNull int[] sampleStarts,
+                     @NonNull long[] sampleTimes, @NonNull float[] sampleXs, @NonNull float[] sampleYs) {
+        this.actions = actions;
+        this.eventTimes = eventTimes;
+        this.sampleStarts = sampleStarts;
+        this.sampleTimes = sampleTimes;
+        this.sampleXs = sampleXs;
+        this.sampleYs = sampleYs;
+    }
+
+    public int getEventCount() {
+        return actions.length;
+    }
+
+    /**
+     * @return The event's masked action, such as {@link MotionEvent#ACTION_MOVE}.
+     */
+    public int getAction(int event) {
+        return actions[event];
+    }
+
+    /**
+     * @return The event's time in milliseconds, the time of its last sample.
+     */
+    public long getEventTime(int event) {
+        return eventTimes[event];
+    }
+
+    /**
+     * @return Number of samples of the event, its historical samples followed by the current one.
+     */
+    public int getSampleCount(int event) {
+        return sampleStarts[event + 1] - sampleStarts[event];
+    }
+
+    public long getSampleTime(int event, int sample) {
+        return sampleTimes[sampleStarts[event] + sample];
+    }
+
+    /**
+     * @return The sample's raw x coordinate, in pixels.
+     */
+    public float getSampleX(int event, int sample) {
+        return sampleXs[sampleStarts[event] + sample];
+    }
+
+    /**
+     * @return The sample's raw y coordinate, in pixels.
+     */
+    public float getSampleY(int event, int sample) {
+        return sampleYs[sampleStarts[event] + sample];
+    }
+
+    /**
+     * @return Time from the first to the last event, in milliseconds.
+     */
+    public long getDuration() {
+        return actions.length == 0 ? 0 : eventTimes[actions.length - 1] - eventTimes[0];
+    }
+
+    /**
+     * Obtains the event as a {@link MotionEvent} in raw coordinates, with its historical samples
+     * batched into it. The caller must recycle it.
+     *
+     * @param downTime Down time of the gesture the event is replayed as.
+     */
+    @NonNull
+    public MotionEvent obtainMotionEvent(int event, long downTime) {
+        final int start = sampleStarts[event];
+        final MotionEvent motionEvent = MotionEvent.obtain(downTime, sampleTimes[start], actions[event],
+                sampleXs[start], sampleYs[start], 0);
+        for (int i = start + 1; i < sampleStarts[event + 1]; i++) {
+            motionEvent.addBatch(sampleTimes[i], sampleXs[i], sampleYs[i], 1, 1, 0);
+        }
+        return motionEvent;
+    }
+
+    /**
+     * Writes the recording as a binary trace, readable by {@link #read(InputStream)}.
+     */
+    public void write(@NonNull OutputStream outputStream) throws IOException {
+        final DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        writeVarLong(out, actions.length);
+        long lastTime = actions.length > 0 ? eventTimes[0] : 0;
+        long lastX = 0;
+        long lastY = 0;
+        writeVarLong(out, zigZag(lastTime));
+        for (int event = 0; event < actions.length; event++) {
+            out.writeByte(actions[event]);
+            final int count = getSampleCount(event);
+            writeVarLong(out, count);
+            for (int i = sampleStarts[event]; i < sampleStarts[event + 1]; i++) {
+                final long x = Math.round(sampleXs[i] * COORDINATE_SCALE);
+                final long y = Math.round(sampleYs[i] * COORDINATE_SCALE);
+                writeVarLong(out, zigZag(sampleTimes[i] - lastTime));
+                writeVarLong(out, zigZag(x - lastX));
+                writeVarLong(out, zigZag(y - lastY));
+                lastTime = sampleTimes[i];
+                lastX = x;
+                lastY = y;
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads a binary trace written by {@link #write(OutputStream)}.
+     *
+     * @throws IOException If the stream could not be read or does not hold a trace.
+     */
+    @NonNull
+    public static GestureRecording read(@NonNull InputStream inputStream) throws IOException {
+        final DataInputStream in = new DataInputStream(inputStream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a gesture trace");
+        }
+        final int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported gesture trace version " + version);
+        }
+        final int eventCount = toCount(readVarLong(in));
+        long lastTime = unZigZag(readVarLong(in));
+        long lastX = 0;
+        long lastY = 0;
+
+        final int[] actions = new int[eventCount];
+        final long[] eventTimes = new long[eventCount];
+        final int[] sampleStarts = new int[eventCount + 1];
+        long[] sampleTimes = new long[eventCount];
+        float[] sampleXs = new float[eventCount];
+        float[] sampleYs = new float[eventCount];
+        int samples = 0;
+        for (int event = 0; event < eventCount; event++) {
+            actions[event] = in.readUnsignedByte();
+            final int count = toCount(readVarLong(in));
+            if (count == 0) {
+                throw new IOException("Event " + event + " has no samples");
+            }
+            if (samples + count > sampleTimes.length) {
+                final int capacity = Math.max(samples + count, 2 * sampleTimes.length);
+                sampleTimes = Arrays.copyOf(sampleTimes, capacity);
+                sampleXs = Arrays.copyOf(sampleXs, capacity);
+                sampleYs = Arrays.copyOf(sampleYs, capacity);
+            }
+            sampleStarts[event] = samples;
+            for (int i = 0; i < count; i++, samples++) {
+                lastTime += unZigZag(readVarLong(in));
+                lastX += unZigZag(readVarLong(in));
+                lastY += unZigZag(readVarLong(in));
+                sampleTimes[samples] = lastTime;
+                sampleXs[samples] = (float) lastX / COORDINATE_SCALE;
+                sampleYs[samples] = (float) lastY / COORDINATE_SCALE;
+            }
+            eventTimes[event] = lastTime;
+        }
+        sampleStarts[eventCount] = samples;
+        return new GestureRecording(actions, eventTimes, sampleStarts,
+                Arrays.copyOf(sampleTimes, samples), Arrays.copyOf(sampleXs, samples), Arrays.copyOf(sampleYs, samples));
+    }
+
+    private static int toCount(long value) throws IOException {
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("Invalid count " + value);
+        }
+        return (int) value;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(@NonNull DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(@NonNull DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable length number");
+    }
+}
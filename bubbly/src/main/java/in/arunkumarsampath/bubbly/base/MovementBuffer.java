@@ -0,0 +1,105 @@
+package in.arunkumarsampath.bubbly.base;
+
+/**
+ * A fixed capacity ring buffer of touch samples backed by primitive arrays. Each sample holds the
+ * x, y coordinates and the event time of a touch point. When the buffer is full, adding a sample
+ * overwrites the oldest one.
+ * <p>
+ * Samples are addressed by a logical index where {@code 0} is the oldest sample retained and
+ * {@code size() - 1} the most recent one. All reads are O(1) and nothing is allocated after
+ * construction.
+ */
+final class MovementBuffer {
+    private final float[] xs;
+    private final float[] ys;
+    private final long[] times;
+    private final int capacity;
+
+    /**
+     * Physical index of the oldest sample.
+     */
+    private int head = 0;
+    private int size = 0;
+
+    MovementBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, was " + capacity);
+        }
+        this.capacity = capacity;
+        xs = new float[capacity];
+        ys = new float[capacity];
+        times = new long[capacity];
+    }
+
+    /**
+     * Adds a sample to the buffer, evicting the oldest sample if the buffer is full.
+     */
+    void add(float x, float y, long eventTime) {
+        final int index;
+        if (size == capacity) {
+            index = head;
+            head = wrap(head + 1);
+        } else {
+            index = wrap(head + size);
+            size++;
+        }
+        xs[index] = x;
+        ys[index] = y;
+        times[index] = eventTime;
+    }
+
+    float getX(int index) {
+        return xs[physicalIndex(index)];
+    }
+
+    float getY(int index) {
+        return ys[physicalIndex(index)];
+    }
+
+    long getEventTime(int index) {
+        return times[physicalIndex(index)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    private int physicalIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return wrap(head + index);
+    }
+
+    private int wrap(int index) {
+        return index >= capacity ? index - capacity : index;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append('(')
+                    .append(getX(i)).append(", ")
+                    .append(getY(i)).append(", ")
+                    .append(getEventTime(i)).append(')');
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,191 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Immutable physics parameters of a {@link BubbleMovementManager}. Each manager builds its own
+ * simulations from its config, so bubble groups can be tuned independently, for example trading
+ * settle time against CPU on low end devices.
+ */
+public final class MovementConfig {
+    /**
+     * Same as {@code SpringForce.STIFFNESS_LOW}.
+     */
+    public static final float DEFAULT_SPRING_STIFFNESS = 200f;
+    /**
+     * Same as {@code SpringForce.DAMPING_RATIO_MEDIUM_BOUNCY}.
+     */
+    public static final float DEFAULT_SPRING_DAMPING_RATIO = 0.5f;
+    public static final float DEFAULT_FLING_FRICTION = 0.5f;
+    /**
+     * Minimum fling velocity as a multiple of the screen width in dp, per second.
+     */
+    public static final float DEFAULT_MIN_FLING_VELOCITY_MULTIPLIER = 6f;
+
+    public static final MovementConfig DEFAULT = new Builder().build();
+
+    private final float springStiffness;
+    private final float springDampingRatio;
+    private final float flingFriction;
+    private final float minFlingVelocityMultiplier;
+    private final boolean projectedDocking;
+
+    private MovementConfig(Builder builder) {
+        springStiffness = builder.springStiffness;
+        springDampingRatio = builder.springDampingRatio;
+        flingFriction = builder.flingFriction;
+        minFlingVelocityMultiplier = builder.minFlingVelocityMultiplier;
+        projectedDocking = builder.projectedDocking;
+    }
+
+    /**
+     * @return Stiffness of the springs docking the master bubble.
+     */
+    public float getSpringStiffness() {
+        return springStiffness;
+    }
+
+    /**
+     * @return Damping ratio of the springs docking the master bubble.
+     */
+    public float getSpringDampingRatio() {
+        return springDampingRatio;
+    }
+
+    /**
+     * @return Friction slowing down a flung bubble, higher values stop it sooner.
+     */
+    public float getFlingFriction() {
+        return flingFriction;
+    }
+
+    /**
+     * @return Multiple of the screen width in dp a fling's x velocity is ramped up to, per second,
+     * so flings reliably reach the far edge.
+     */
+    public float getMinFlingVelocityMultiplier() {
+        return minFlingVelocityMultiplier;
+    }
+
+    /**
+     * @return True if a flung bubble springs straight to the target its projected landing point
+     * picks, with critically damped springs, instead of flinging to the bounds and springing from
+     * there.
+     */
+    public boolean isProjectedDocking() {
+        return projectedDocking;
+    }
+
+    /**
+     * @return A builder initialized with this config's values.
+     */
+    @NonNull
+    public Builder buildUpon() {
+        return new Builder()
+                .setSpringStiffness(springStiffness)
+                .setSpringDampingRatio(springDampingRatio)
+                .setFlingFriction(flingFriction)
+                .setMinFlingVelocityMultiplier(minFlingVelocityMultiplier)
+                .setProjectedDocking(projectedDocking);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MovementConfig)) return false;
+        final MovementConfig that = (MovementConfig) o;
+        return Float.compare(that.springStiffness, springStiffness) == 0
+                && Float.compare(that.springDampingRatio, springDampingRatio) == 0
+                && Float.compare(that.flingFriction, flingFriction) == 0
+                && Float.compare(that.minFlingVelocityMultiplier, minFlingVelocityMultiplier) == 0
+                && projectedDocking == that.projectedDocking;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Float.floatToIntBits(springStiffness);
+        result = 31 * result + Float.floatToIntBits(springDampingRatio);
+        result = 31 * result + Float.floatToIntBits(flingFriction);
+        result = 31 * result + Float.floatToIntBits(minFlingVelocityMultiplier);
+        result = 31 * result + (projectedDocking ? 1 : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "MovementConfig{" +
+                "springStiffness=" + springStiffness +
+                ", springDampingRatio=" + springDampingRatio +
+                ", flingFriction=" + flingFriction +
+                ", minFlingVelocityMultiplier=" + minFlingVelocityMultiplier +
+                ", projectedDocking=" + projectedDocking +
+                '}';
+    }
+
+    public static final class Builder {
+        private float springStiffness = DEFAULT_SPRING_STIFFNESS;
+        private float springDampingRatio = DEFAULT_SPRING_DAMPING_RATIO;
+        private float flingFriction = DEFAULT_FLING_FRICTION;
+        private float minFlingVelocityMultiplier = DEFAULT_MIN_FLING_VELOCITY_MULTIPLIER;
+        private boolean projectedDocking;
+
+        /**
+         * @param stiffness Must be positive.
+         */
+        @NonNull
+        public Builder setSpringStiffness(float stiffness) {
+            if (stiffness <= 0) {
+                throw new IllegalArgumentException("Spring stiffness must be positive: " + stiffness);
+            }
+            springStiffness = stiffness;
+            return this;
+        }
+
+        /**
+         * @param dampingRatio Must not be negative.
+         */
+        @NonNull
+        public Builder setSpringDampingRatio(float dampingRatio) {
+            if (dampingRatio < 0) {
+                throw new IllegalArgumentException("Damping ratio must not be negative: " + dampingRatio);
+            }
+            springDampingRatio = dampingRatio;
+            return this;
+        }
+
+        /**
+         * @param friction Must be positive.
+         */
+        @NonNull
+        public Builder setFlingFriction(float friction) {
+            if (friction <= 0) {
+                throw new IllegalArgumentException("Fling friction must be positive: " + friction);
+            }
+            flingFriction = friction;
+            return this;
+        }
+
+        /**
+         * @param multiplier Must be positive.
+         */
+        @NonNull
+        public Builder setMinFlingVelocityMultiplier(float multiplier) {
+            if (multiplier <= 0) {
+                throw new IllegalArgumentException("Multiplier must be positive: " + multiplier);
+            }
+            minFlingVelocityMultiplier = multiplier;
+            return this;
+        }
+
+        @NonNull
+        public Builder setProjectedDocking(boolean projectedDocking) {
+            this.projectedDocking = projectedDocking;
+            return this;
+        }
+
+        @NonNull
+        public MovementConfig build() {
+            return new MovementConfig(this);
+        }
+    }
+}
@@ -3,159 +3,378 @@ package in.arunkumarsampath.bubbly.base;
 import android.support.annotation.NonNull;
 import android.view.MotionEvent;
 
-import java.util.Collection;
-import java.util.LinkedList;
-
 public class MovementTracker {
-    private final SizedQueue<Float> xPoints;
-    private final SizedQueue<Float> yPoints;
-    private int trackingSize = 0;
+    /**
+     * Maximum number of recycled trackers retained per thread.
+     */
+    private static final int MAX_POOL_SIZE = 4;
+
+    /**
+     * Fastest touch sample rate the ring of samples is sized for. Samples reported faster than this
+     * over a whole velocity window may evict the oldest ones of the window.
+     */
+    static final int MAX_SAMPLE_RATE_HZ = 240;
+
+    /**
+     * Smallest number of samples retained, enough to cover the default window at the maximum rate.
+     */
+    private static final int MIN_SAMPLES = 32;
+
+    /**
+     * Longest window the ring of samples grows to hold, longer windows fit the samples of this one.
+     */
+    private static final long MAX_RETAINED_MILLIS = 1000;
+
+    /**
+     * Default time window of samples the velocity is estimated from.
+     */
+    static final long DEFAULT_VELOCITY_WINDOW_MILLIS = 100;
+
+    /**
+     * A gap this long between two samples means the finger rested, older samples are then ignored.
+     */
+    private static final long MAX_SAMPLE_GAP_MILLIS = 40;
+
+    /**
+     * Only samples this recent, relative to the newest sample, are fitted when predicting.
+     */
+    private static final long PREDICTION_WINDOW_MILLIS = 50;
+
+    /**
+     * Predictions never extrapolate further than this past the newest sample, bounding overshoot
+     * when the finger stops abruptly.
+     */
+    static final long MAX_PREDICTION_MILLIS = 32;
+
+    private static final ThreadLocal<Pool> POOL = new ThreadLocal<Pool>() {
+        @Override
+        protected Pool initialValue() {
+            return new Pool(MAX_POOL_SIZE);
+        }
+    };
+
+    private MovementBuffer points;
+    private long velocityWindowMillis = DEFAULT_VELOCITY_WINDOW_MILLIS;
+
+    /**
+     * Result of the last {@link #fit(long, boolean)}: the fitted position at the newest sample's time and
+     * the fitted velocity in pixels per millisecond.
+     */
+    private float fitX;
+    private float fitY;
+    private float fitVelocityX;
+    private float fitVelocityY;
+
+    /**
+     * True while this instance sits in the pool and must not be used.
+     */
+    private boolean inPool;
 
     private MovementTracker() {
-        trackingSize = 10;
-        xPoints = new SizedQueue<>(trackingSize);
-        yPoints = new SizedQueue<>(trackingSize);
+        points = new MovementBuffer(MIN_SAMPLES);
     }
 
+    /**
+     * Returns a tracker from the calling thread's pool, or a new one if the pool is empty. Callers
+     * must hand the instance back with {@link #recycle()} once done, on the same thread.
+     */
     @NonNull
     static MovementTracker obtain() {
-        return new MovementTracker();
+        MovementTracker tracker = POOL.get().acquire();
+        if (tracker == null) {
+            tracker = new MovementTracker();
+        }
+        tracker.inPool = false;
+        return tracker;
     }
 
-    static float[] adjustVelocities(float[] p1, float[] p2, float xVelocity, float yVelocity) {
-        float downX = p1[0];
-        float downY = p1[1];
-
-        float upX = p2[0];
-        float upY = p2[1];
+    /**
+     * Returns this tracker to the calling thread's pool. The tracker must not be used after calling
+     * this method.
+     *
+     * @throws IllegalStateException if the tracker was already recycled.
+     */
+    void recycle() {
+        if (inPool) {
+            throw new IllegalStateException("Already recycled");
+        }
+        points.clear();
+        velocityWindowMillis = DEFAULT_VELOCITY_WINDOW_MILLIS;
+        inPool = true;
+        POOL.get().release(this);
+    }
 
-        float x = 0, y = 0;
+    /**
+     * Ramps up the x velocity based on screen density and where the user lifted the finger so that
+     * flings reliably reach the far edge, and applies the same ramp up to the y velocity. Velocities
+     * without an x component are left unchanged, there is no edge to ramp up towards.
+     *
+     * @param upX                  The raw x coordinate where the finger was lifted.
+     * @param boundsWidth          Width of the movement bounds.
+     * @param minimumFlingVelocity Minimum x velocity needed to cross the whole bounds.
+     * @param velocities           The {x, y} velocities, updated in place.
+     */
+    static void interpolateVelocities(float upX, int boundsWidth, float minimumFlingVelocity, @NonNull float[] velocities) {
+        final float xBeforeRampUp = velocities[0];
+        if (xBeforeRampUp == 0 || boundsWidth <= 0) {
+            return;
+        }
+        final float xAfterRampUp;
 
-        if (upX >= downX && upY >= downY) {
-            // Bottom right
-            x = positive(xVelocity);
-            y = positive(yVelocity);
-        } else if (upX >= downX && upY <= downY) {
-            // Top right
-            x = positive(xVelocity);
-            y = negate(yVelocity);
-        } else if (upX <= downX && upY <= downY) {
-            // Top left
-            x = negate(xVelocity);
-            y = negate(yVelocity);
-        } else if (upX <= downX && upY >= downY) {
-            // Bottom left
-            x = negate(xVelocity);
-            y = positive(yVelocity);
+        final float x = upX / boundsWidth;
+        if (xBeforeRampUp > 0) {
+            xAfterRampUp = Math.max(xBeforeRampUp, minimumFlingVelocity * (1 - x));
+        } else {
+            xAfterRampUp = -Math.max(-xBeforeRampUp, minimumFlingVelocity * x);
         }
-        return new float[]{x, y};
-    }
 
-    private static float negate(float value) {
-        return value > 0 ? -value : value;
-    }
+        // Find out how much percent we ramped up X velocity, never dividing by zero as the
+        // ramped up velocity is at least as fast as the original one.
+        float xPercentageRampUp = xBeforeRampUp / xAfterRampUp;
 
-    private static float positive(float value) {
-        return Math.abs(value);
+        // Apply the same amount of ramp up to y velocity.
+        final float yAfterRampUp = velocities[1] + (velocities[1] * xPercentageRampUp);
+
+        velocities[0] = xAfterRampUp;
+        velocities[1] = yAfterRampUp;
     }
 
     /**
-     * Adds a motion event to the tracker.
+     * Adds a motion event to the tracker, including the historical samples batched into it.
      *
      * @param event The event to be added.
      */
     void addMovement(@NonNull MotionEvent event) {
-        float x = event.getRawX();
-        float y = event.getRawY();
-        xPoints.add(x);
-        yPoints.add(y);
+        // Historical samples are only reported in view coordinates, the offset converts them to
+        // raw coordinates as the view did not move within the batch.
+        final float offsetX = event.getRawX() - event.getX();
+        final float offsetY = event.getRawY() - event.getY();
+        final int historySize = event.getHistorySize();
+        for (int h = 0; h < historySize; h++) {
+            addMovement(event.getHistoricalX(h) + offsetX,
+                    event.getHistoricalY(h) + offsetY,
+                    event.getHistoricalEventTime(h));
+        }
+        addMovement(event.getRawX(), event.getRawY(), event.getEventTime());
+    }
+
+    /**
+     * Adds a raw touch point to the tracker.
+     *
+     * @param x         The raw x coordinate.
+     * @param y         The raw y coordinate.
+     * @param eventTime The time of the sample in {@link android.os.SystemClock#uptimeMillis()} base.
+     */
+    void addMovement(float x, float y, long eventTime) {
+        points.add(x, y, eventTime);
     }
 
     /**
      * Clear the tracking queue when user begins the gesture.
      */
     void onDown() {
-        xPoints.clear();
-        yPoints.clear();
+        points.clear();
     }
 
     /**
      * Clear the tracking queue when user ends the gesture.
      */
     void onUp() {
-        xPoints.clear();
-        yPoints.clear();
+        points.clear();
     }
 
-    float[] getAdjustedVelocities(float xVelocity, float yVelocity) {
-        int trackingThreshold = (int) (0.25 * trackingSize);
-        float[] velocities;
-        if (xPoints.size() >= trackingThreshold) {
-            int downIndex = xPoints.size() - trackingThreshold;
-
-            float[] up = new float[]{xPoints.getLast(), yPoints.getLast()};
-            float[] down = new float[]{xPoints.get(downIndex), yPoints.get(downIndex)};
+    /**
+     * Sets the time window of recent samples {@link #computeVelocity(float[])} fits. Shorter windows
+     * react faster to changes of direction at the end of a gesture, longer ones smooth out noise.
+     * <p>
+     * The ring of samples grows to hold a window of up to {@link #MAX_RETAINED_MILLIS} at
+     * {@link #MAX_SAMPLE_RATE_HZ}, keeping the samples tracked so far. It never shrinks, so a
+     * recycled tracker keeps its capacity.
+     *
+     * @param windowMillis The window in milliseconds, must be positive.
+     */
+    void setVelocityWindowMillis(long windowMillis) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("Window must be positive: " + windowMillis);
+        }
+        velocityWindowMillis = windowMillis;
 
-            velocities = adjustVelocities(down, up, xVelocity, yVelocity);
-        } else {
-            velocities = null;
+        // One sample more than the window spans, so both of its ends are retained.
+        final long retainedMillis = Math.min(windowMillis, MAX_RETAINED_MILLIS);
+        final int required = (int) ((retainedMillis * MAX_SAMPLE_RATE_HZ + 999) / 1000) + 1;
+        if (required > points.capacity()) {
+            final MovementBuffer grown = new MovementBuffer(required);
+            for (int i = 0; i < points.size(); i++) {
+                grown.add(points.getX(i), points.getY(i), points.getEventTime(i));
+            }
+            points = grown;
         }
-        return velocities;
     }
 
-    @Override
-    public String toString() {
-        return xPoints.toString() + yPoints.toString();
+    long getVelocityWindowMillis() {
+        return velocityWindowMillis;
+    }
+
+    int getSampleCapacity() {
+        return points.capacity();
     }
-}
 
-/**
- * A size limited queue structure that evicts the queue head when maximum queue size is reached. At
- * any instant the queue is equal or less than the max queue size.
- *
- * @param <E>
- */
-class SizedQueue<E> extends LinkedList<E> {
     /**
-     * The maximum size of queue
+     * Estimates the current velocity with a time weighted least squares quadratic fitted through
+     * the samples of the velocity window.
+     *
+     * @param out Receives the {x, y} velocities in pixels per second, must have a length of at
+     *            least 2.
+     * @return True if at least two samples lie within the window and {@code out} was written to.
      */
-    private final int limit;
-
-    SizedQueue(int limit) {
-        this.limit = limit;
+    boolean computeVelocity(@NonNull float[] out) {
+        if (!fit(velocityWindowMillis, true)) {
+            return false;
+        }
+        out[0] = fitVelocityX * 1000;
+        out[1] = fitVelocityY * 1000;
+        return true;
     }
 
-    @Override
-    public boolean add(E o) {
-        super.add(o);
-        while (size() > limit) {
-            super.remove();
+    /**
+     * Predicts where the finger will be at the given time by extrapolating the line fitted through
+     * the most recent samples. The prediction is limited to {@link #MAX_PREDICTION_MILLIS} past the
+     * newest sample.
+     *
+     * @param time The time to predict for, in the same time base as the tracked samples.
+     * @param out  Receives the predicted {x, y} position, must have a length of at least 2.
+     * @return True if any points were tracked and {@code out} was written to.
+     */
+    boolean predictPosition(long time, @NonNull float[] out) {
+        final int size = points.size();
+        if (size == 0) {
+            return false;
         }
+        final int newest = size - 1;
+        if (!fit(PREDICTION_WINDOW_MILLIS, false)) {
+            out[0] = points.getX(newest);
+            out[1] = points.getY(newest);
+            return true;
+        }
+        final long horizon = Math.max(0, Math.min(MAX_PREDICTION_MILLIS, time - points.getEventTime(newest)));
+        out[0] = fitX + fitVelocityX * horizon;
+        out[1] = fitY + fitVelocityY * horizon;
         return true;
     }
 
-    @Override
-    public boolean addAll(Collection<? extends E> collection) {
-        throw new UnsupportedOperationException("Not implemented, use add()");
-    }
+    /**
+     * Fits a weighted least squares polynomial per axis through the samples within
+     * {@code windowMillis} of the newest one, stopping early at a gap longer than
+     * {@link #MAX_SAMPLE_GAP_MILLIS}. Weights fall linearly from 1 for the newest sample to 0.5 at
+     * the edge of the window so that the end of the gesture dominates. A quadratic follows the
+     * acceleration of a flick up to the moment of release, where a line would report the average
+     * velocity over the window. The quadratic falls back to a line when fewer than three samples
+     * are available. The result, evaluated at the newest sample's time, is stored in {@link #fitX},
+     * {@link #fitY}, {@link #fitVelocityX} and {@link #fitVelocityY}.
+     *
+     * @param quadratic True to fit a quadratic, false to fit a line.
+     * @return False if fewer than two samples at distinct times were found.
+     */
+    private boolean fit(long windowMillis, boolean quadratic) {
+        final int newest = points.size() - 1;
+        if (newest < 1) {
+            return false;
+        }
+        final long newestTime = points.getEventTime(newest);
 
-    @Override
-    public void add(int location, E object) {
-        throw new UnsupportedOperationException("Not implemented, use add()");
+        // Weighted power sums of time, taken relative to the newest sample to keep them small.
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0, s4 = 0;
+        double x0 = 0, x1 = 0, x2 = 0, y0 = 0, y1 = 0, y2 = 0;
+        long previousTime = newestTime;
+        for (int i = newest; i >= 0; i--) {
+            final long sampleTime = points.getEventTime(i);
+            final long age = newestTime - sampleTime;
+            if (age > windowMillis || previousTime - sampleTime > MAX_SAMPLE_GAP_MILLIS) {
+                break;
+            }
+            previousTime = sampleTime;
+
+            final double w = 1 - 0.5 * age / windowMillis;
+            final double t = -age;
+            final double wt = w * t;
+            final double wtt = wt * t;
+            final float x = points.getX(i);
+            final float y = points.getY(i);
+            s0 += w;
+            s1 += wt;
+            s2 += wtt;
+            s3 += wtt * t;
+            s4 += wtt * t * t;
+            x0 += w * x;
+            x1 += wt * x;
+            x2 += wtt * x;
+            y0 += w * y;
+            y1 += wt * y;
+            y2 += wtt * y;
+        }
+
+        if (quadratic) {
+            // Cramer's rule on the normal equations, only the constant and linear terms are needed.
+            final double det = det3(s0, s1, s2, s1, s2, s3, s2, s3, s4);
+            if (Math.abs(det) > 1e-6) {
+                fitX = (float) (det3(x0, s1, s2, x1, s2, s3, x2, s3, s4) / det);
+                fitY = (float) (det3(y0, s1, s2, y1, s2, s3, y2, s3, s4) / det);
+                fitVelocityX = (float) (det3(s0, x0, s2, s1, x1, s3, s2, x2, s4) / det);
+                fitVelocityY = (float) (det3(s0, y0, s2, s1, y1, s3, s2, y2, s4) / det);
+                return true;
+            }
+        }
+
+        final double det = s0 * s2 - s1 * s1;
+        if (det <= 1e-6) {
+            return false;
+        }
+        fitX = (float) ((x0 * s2 - s1 * x1) / det);
+        fitY = (float) ((y0 * s2 - s1 * y1) / det);
+        fitVelocityX = (float) ((s0 * x1 - s1 * x0) / det);
+        fitVelocityY = (float) ((s0 * y1 - s1 * y0) / det);
+        return true;
     }
 
-    @Override
-    public void addFirst(E object) {
-        throw new UnsupportedOperationException("Not implemented, use add()");
+    /**
+     * @return The determinant of the 3x3 matrix given in row major order.
+     */
+    private static double det3(double a, double b, double c,
+                               double d, double e, double f,
+                               double g, double h, double i) {
+        return a * (e * i - f * h) - b * (d * i - f * g) + c * (d * h - e * g);
     }
 
     @Override
-    public void addLast(E object) {
-        throw new UnsupportedOperationException("Not implemented, use add()");
+    public String toString() {
+        return points.toString();
     }
 
-    @Override
-    public boolean addAll(int location, Collection<? extends E> collection) {
-        throw new UnsupportedOperationException("Not implemented, use add()");
+    /**
+     * A bounded stack of recycled trackers. Each thread gets its own instance so no synchronization
+     * is needed.
+     */
+    private static final class Pool {
+        private final MovementTracker[] trackers;
+        private int size = 0;
+
+        Pool(int maxSize) {
+            trackers = new MovementTracker[maxSize];
+        }
+
+        MovementTracker acquire() {
+            if (size == 0) {
+                return null;
+            }
+            final MovementTracker tracker = trackers[--size];
+            trackers[size] = null;
+            return tracker;
+        }
+
+        void release(MovementTracker tracker) {
+            if (size < trackers.length) {
+                trackers[size++] = tracker;
+            }
+        }
     }
-}
\ No newline at end of file
+}
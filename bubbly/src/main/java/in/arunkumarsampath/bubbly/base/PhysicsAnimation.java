@@ -0,0 +1,96 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import in.arunkumarsampath.bubbly.physics.Simulation;
+
+/**
+ * Runs a {@link Simulation} on a {@link FrameSource}, stepping it once per frame with the time
+ * elapsed since the previous frame.
+ * <p>
+ * Instances are meant to be long lived: configure the simulation and call {@link #start()} for
+ * every gesture. Listeners are fixed at construction so nothing is allocated per gesture.
+ */
+final class PhysicsAnimation implements FrameSource.Callback {
+
+    interface UpdateListener {
+        void onAnimationUpdate(float value, float velocity);
+    }
+
+    interface EndListener {
+        /**
+         * Called when the simulation comes to an end by itself, not when it is cancelled.
+         */
+        void onAnimationEnd(float value, float velocity);
+    }
+
+    private final FrameSource frameSource;
+    private final Simulation simulation;
+    private final UpdateListener updateListener;
+    @Nullable
+    private final EndListener endListener;
+
+    private boolean running;
+    private long lastFrameTimeNanos;
+
+    PhysicsAnimation(@NonNull FrameSource frameSource,
+                     @NonNull Simulation simulation,
+                     @NonNull UpdateListener updateListener,
+                     @Nullable EndListener endListener) {
+        this.frameSource = frameSource;
+        this.simulation = simulation;
+        this.updateListener = updateListener;
+        this.endListener = endListener;
+    }
+
+    /**
+     * Starts animating from the simulation's current state, restarting if already running.
+     */
+    void start() {
+        running = true;
+        lastFrameTimeNanos = -1;
+        frameSource.postFrameCallback(this);
+    }
+
+    void cancel() {
+        if (running) {
+            running = false;
+            frameSource.removeFrameCallback(this);
+        }
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) {
+            return;
+        }
+        if (lastFrameTimeNanos < 0) {
+            // First frame only establishes the time base, like DynamicAnimation.
+            lastFrameTimeNanos = frameTimeNanos;
+            updateListener.onAnimationUpdate(simulation.getValue(), simulation.getVelocity());
+            frameSource.postFrameCallback(this);
+            return;
+        }
+        final long deltaTimeNanos = frameTimeNanos - lastFrameTimeNanos;
+        lastFrameTimeNanos = frameTimeNanos;
+
+        final boolean finished = simulation.step(deltaTimeNanos);
+        final float value = simulation.getValue();
+        final float velocity = simulation.getVelocity();
+        updateListener.onAnimationUpdate(value, velocity);
+
+        if (finished) {
+            running = false;
+            if (endListener != null) {
+                endListener.onAnimationEnd(value, velocity);
+            }
+        } else if (running) {
+            frameSource.postFrameCallback(this);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package in.arunkumarsampath.bubbly.base;
+
+/**
+ * A magnetic point a bubble docks to, in the same coordinates as the bubble's position. A bubble
+ * whose landing point lies within {@link #getRadius()} of the target docks to it in preference to
+ * the edges of the screen.
+ * <p>
+ * A corner target is not fixed but follows a corner of its registry's range, for example when the
+ * screen rotates.
+ */
+public final class SnapTarget {
+    private float x;
+    private float y;
+    private final float radius;
+    /**
+     * The corner followed as a pair of {@code SnapTargetRegistry.EDGE_*} flags, 0 for a fixed point.
+     */
+    private final int corner;
+
+    SnapTarget(float x, float y, float radius) {
+        this(x, y, radius, 0);
+    }
+
+    SnapTarget(float x, float y, float radius, int corner) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("Radius must not be negative: " + radius);
+        }
+        this.x = x;
+        this.y = y;
+        this.radius = radius;
+        this.corner = corner;
+    }
+
+    /**
+     * @return The corner of the range the target follows, as a pair of
+     * {@code SnapTargetRegistry.EDGE_*} flags, or 0 for a fixed point.
+     */
+    public int getCorner() {
+        return corner;
+    }
+
+    /**
+     * Moves a corner target to its corner of a new range.
+     */
+    void resolve(float minX, float minY, float maxX, float maxY) {
+        x = (corner & SnapTargetRegistry.EDGE_LEFT) != 0 ? minX : maxX;
+        y = (corner & SnapTargetRegistry.EDGE_TOP) != 0 ? minY : maxY;
+    }
+
+    public float getX() {
+        return x;
+    }
+
+    public float getY() {
+        return y;
+    }
+
+    public float getRadius() {
+        return radius;
+    }
+
+    @Override
+    public String toString() {
+        return "SnapTarget(" + x + ", " + y + ", r=" + radius + ")";
+    }
+}
@@ -0,0 +1,310 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The places a released bubble docks to: any of the four edges of its movement range plus any
+ * number of magnetic {@link SnapTarget} points such as corners or app specific docks.
+ * <p>
+ * Point targets are kept in a k-d tree that is rebuilt lazily after targets change, so a lookup
+ * visits O(log n) points on average however many targets are registered. The at most four edges
+ * are checked directly.
+ */
+public final class SnapTargetRegistry {
+    public static final int EDGE_LEFT = 1;
+    public static final int EDGE_TOP = 1 << 1;
+    public static final int EDGE_RIGHT = 1 << 2;
+    public static final int EDGE_BOTTOM = 1 << 3;
+    public static final int EDGES_HORIZONTAL = EDGE_LEFT | EDGE_RIGHT;
+    public static final int EDGES_ALL = EDGE_LEFT | EDGE_TOP | EDGE_RIGHT | EDGE_BOTTOM;
+
+    private float minX;
+    private float minY;
+    private float maxX;
+    private float maxY;
+    private int edges = EDGES_HORIZONTAL;
+
+    private final List<SnapTarget> targets = new ArrayList<>();
+    /**
+     * Indices into {@link #targets} laid out as an implicit balanced k-d tree: the median of each
+     * range is its root, split on x at even depths and on y at odd depths.
+     */
+    private int[] tree = new int[0];
+    private boolean treeDirty;
+    private float maxRadius;
+
+    /**
+     * Result of the last nearest point search.
+     */
+    private int bestIndex;
+    private float bestScore;
+    private int visitCount;
+
+    /**
+     * Sets the range the bubble's position moves in, the edges lie on its sides and corner targets
+     * move to its corners.
+     */
+    public void setRange(float minX, float minY, float maxX, float maxY) {
+        maxX = Math.max(minX, maxX);
+        maxY = Math.max(minY, maxY);
+        if (minX == this.minX && minY == this.minY && maxX == this.maxX && maxY == this.maxY) {
+            return;
+        }
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        for (int i = 0; i < targets.size(); i++) {
+            final SnapTarget target = targets.get(i);
+            if (target.getCorner() != 0) {
+                target.resolve(minX, minY, maxX, maxY);
+                treeDirty = true;
+            }
+        }
+    }
+
+    /**
+     * @param edges The edges bubbles dock to, a combination of the {@code EDGE_*} flags. With no
+     *              edges a bubble away from any point target stays where it lands.
+     */
+    public void setEdges(int edges) {
+        this.edges = edges & EDGES_ALL;
+    }
+
+    public int getEdges() {
+        return edges;
+    }
+
+    /**
+     * Registers a magnetic point.
+     *
+     * @param radius Distance within which the point wins over the edges.
+     */
+    @NonNull
+    public SnapTarget addPoint(float x, float y, float radius) {
+        final SnapTarget target = new SnapTarget(x, y, radius);
+        targets.add(target);
+        treeDirty = true;
+        return target;
+    }
+
+    /**
+     * Registers a point at each corner of the range, which follows the corner when the range
+     * changes.
+     */
+    public void addCorners(float radius) {
+        addCorner(EDGE_LEFT | EDGE_TOP, radius);
+        addCorner(EDGE_RIGHT | EDGE_TOP, radius);
+        addCorner(EDGE_LEFT | EDGE_BOTTOM, radius);
+        addCorner(EDGE_RIGHT | EDGE_BOTTOM, radius);
+    }
+
+    /**
+     * Registers a point following a corner of the range.
+     *
+     * @param corner One of {@link #EDGE_LEFT} or {@link #EDGE_RIGHT} combined with one of
+     *               {@link #EDGE_TOP} or {@link #EDGE_BOTTOM}.
+     */
+    @NonNull
+    public SnapTarget addCorner(int corner, float radius) {
+        if (Integer.bitCount(corner & EDGES_HORIZONTAL) != 1
+                || Integer.bitCount(corner & (EDGE_TOP | EDGE_BOTTOM)) != 1
+                || (corner & ~EDGES_ALL) != 0) {
+            throw new IllegalArgumentException("Not a corner: " + corner);
+        }
+        final SnapTarget target = new SnapTarget(0, 0, radius, corner);
+        target.resolve(minX, minY, maxX, maxY);
+        targets.add(target);
+        treeDirty = true;
+        return target;
+    }
+
+    public boolean remove(@NonNull SnapTarget target) {
+        final boolean removed = targets.remove(target);
+        treeDirty |= removed;
+        return removed;
+    }
+
+    public void clearPoints() {
+        targets.clear();
+        treeDirty = true;
+    }
+
+    public int getPointCount() {
+        return targets.size();
+    }
+
+    /**
+     * Finds where a bubble landing at the given position docks. The nearest point target wins if
+     * the landing point lies within its radius, otherwise the nearest enabled edge, and the
+     * nearest point target if no edge is enabled. The landing point is clamped to the range if
+     * there is neither.
+     *
+     * @param out Receives the {x, y} docked position, must have a length of at least 2.
+     * @return The point target docked to, or null when docked to an edge or nothing.
+     */
+    @Nullable
+    public SnapTarget findTarget(float x, float y, @NonNull float[] out) {
+        final float clampedX = clamp(x, minX, maxX);
+        final float clampedY = clamp(y, minY, maxY);
+
+        final SnapTarget point = findNearestPoint(x, y);
+        if (point != null && (bestScore <= 0 || edges == 0)) {
+            out[0] = point.getX();
+            out[1] = point.getY();
+            return point;
+        }
+
+        out[0] = clampedX;
+        out[1] = clampedY;
+        float bestEdgeDistance = Float.MAX_VALUE;
+        if ((edges & EDGE_LEFT) != 0 && Math.abs(x - minX) < bestEdgeDistance) {
+            bestEdgeDistance = Math.abs(x - minX);
+            out[0] = minX;
+            out[1] = clampedY;
+        }
+        if ((edges & EDGE_RIGHT) != 0 && Math.abs(maxX - x) < bestEdgeDistance) {
+            bestEdgeDistance = Math.abs(maxX - x);
+            out[0] = maxX;
+            out[1] = clampedY;
+        }
+        if ((edges & EDGE_TOP) != 0 && Math.abs(y - minY) < bestEdgeDistance) {
+            bestEdgeDistance = Math.abs(y - minY);
+            out[0] = clampedX;
+            out[1] = minY;
+        }
+        if ((edges & EDGE_BOTTOM) != 0 && Math.abs(maxY - y) < bestEdgeDistance) {
+            out[0] = clampedX;
+            out[1] = maxY;
+        }
+        return null;
+    }
+
+    /**
+     * Finds the point target minimizing the distance to the given position minus its radius, and
+     * leaves that score in {@link #bestScore}.
+     */
+    @Nullable
+    private SnapTarget findNearestPoint(float x, float y) {
+        if (targets.isEmpty()) {
+            return null;
+        }
+        if (treeDirty) {
+            buildTree();
+        }
+        bestIndex = -1;
+        bestScore = Float.MAX_VALUE;
+        visitCount = 0;
+        search(0, tree.length, 0, x, y);
+        return targets.get(bestIndex);
+    }
+
+    private void search(int from, int to, int depth, float x, float y) {
+        if (from >= to) {
+            return;
+        }
+        final int mid = (from + to) >>> 1;
+        final SnapTarget target = targets.get(tree[mid]);
+        visitCount++;
+        final float score = (float) Math.hypot(target.getX() - x, target.getY() - y) - target.getRadius();
+        if (score < bestScore) {
+            bestScore = score;
+            bestIndex = tree[mid];
+        }
+
+        final float delta = (depth & 1) == 0 ? x - target.getX() : y - target.getY();
+        final int nextDepth = depth + 1;
+        if (delta < 0) {
+            search(from, mid, nextDepth, x, y);
+            // Only cross the splitting plane if a point beyond it could still score better.
+            if (-delta - maxRadius < bestScore) {
+                search(mid + 1, to, nextDepth, x, y);
+            }
+        } else {
+            search(mid + 1, to, nextDepth, x, y);
+            if (delta - maxRadius < bestScore) {
+                search(from, mid, nextDepth, x, y);
+            }
+        }
+    }
+
+    /**
+     * @return Number of point targets the last lookup compared against.
+     */
+    @VisibleForTesting
+    int getLastVisitCount() {
+        return visitCount;
+    }
+
+    private void buildTree() {
+        final int size = targets.size();
+        if (tree.length != size) {
+            tree = new int[size];
+        }
+        maxRadius = 0;
+        for (int i = 0; i < size; i++) {
+            tree[i] = i;
+            maxRadius = Math.max(maxRadius, targets.get(i).getRadius());
+        }
+        build(0, size, 0);
+        treeDirty = false;
+    }
+
+    private void build(int from, int to, int depth) {
+        if (to - from < 2) {
+            return;
+        }
+        final int mid = (from + to) >>> 1;
+        select(from, to - 1, mid, (depth & 1) == 0);
+        build(from, mid, depth + 1);
+        build(mid + 1, to, depth + 1);
+    }
+
+    /**
+     * Partially sorts {@code tree[left..right]} so the element at {@code k} is the one a full sort
+     * on the given axis would put there, with smaller ones before it and larger ones after it.
+     */
+    private void select(int left, int right, int k, boolean onX) {
+        while (left < right) {
+            final float pivot = coordinate(tree[(left + right) >>> 1], onX);
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (coordinate(tree[i], onX) < pivot) {
+                    i++;
+                }
+                while (coordinate(tree[j], onX) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    final int swap = tree[i];
+                    tree[i] = tree[j];
+                    tree[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private float coordinate(int index, boolean onX) {
+        final SnapTarget target = targets.get(index);
+        return onX ? target.getX() : target.getY();
+    }
+
+    private static float clamp(float value, float min, float max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,121 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, lock-free queue of touch samples from a single producer thread to a single consumer
+ * thread. Samples are stored in preallocated primitive arrays, so neither side allocates.
+ * <p>
+ * Each side owns one counter: the producer publishes a sample by advancing {@link #tail} after
+ * writing it, the consumer frees a slot by advancing {@link #head} after reading it. The ordered
+ * writes of the counters make the slot contents visible to the other side.
+ */
+final class TouchSampleRing {
+    static final int KIND_DOWN = 0;
+    static final int KIND_MOVE = 1;
+    static final int KIND_UP = 2;
+
+    /**
+     * A sample read from the ring, reused by the consumer.
+     */
+    static final class Sample {
+        int kind;
+        long time;
+        float x;
+        float y;
+    }
+
+    private final int mask;
+    private final int[] kinds;
+    private final long[] times;
+    private final float[] xs;
+    private final float[] ys;
+
+    /**
+     * Number of samples read, only advanced by the consumer.
+     */
+    private final AtomicLong head = new AtomicLong();
+    /**
+     * Number of samples written, only advanced by the producer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * Producer's copy of {@link #head}, refreshed only when the ring looks full.
+     */
+    private long cachedHead;
+
+    /**
+     * @param capacity Number of samples held, a power of two.
+     */
+    TouchSampleRing(int capacity) {
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        mask = capacity - 1;
+        kinds = new int[capacity];
+        times = new long[capacity];
+        xs = new float[capacity];
+        ys = new float[capacity];
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Called by the producer to append a sample.
+     *
+     * @return False if the ring is full and the sample was dropped.
+     */
+    boolean offer(int kind, long time, float x, float y) {
+        final long index = tail.get();
+        if (index - cachedHead > mask) {
+            cachedHead = head.get();
+            if (index - cachedHead > mask) {
+                return false;
+            }
+        }
+        final int slot = (int) index & mask;
+        kinds[slot] = kind;
+        times[slot] = time;
+        xs[slot] = x;
+        ys[slot] = y;
+        tail.lazySet(index + 1);
+        return true;
+    }
+
+    /**
+     * Called by the consumer to take the oldest sample.
+     *
+     * @return False if the ring is empty.
+     */
+    boolean poll(@NonNull Sample out) {
+        final long index = head.get();
+        if (index == tail.get()) {
+            return false;
+        }
+        final int slot = (int) index & mask;
+        out.kind = kinds[slot];
+        out.time = times[slot];
+        out.x = xs[slot];
+        out.y = ys[slot];
+        head.lazySet(index + 1);
+        return true;
+    }
+
+    /**
+     * @return Number of samples written so far, which is the serial number of the next sample.
+     */
+    long getWrittenCount() {
+        return tail.get();
+    }
+
+    /**
+     * @return Number of samples read so far.
+     */
+    long getReadCount() {
+        return head.get();
+    }
+}
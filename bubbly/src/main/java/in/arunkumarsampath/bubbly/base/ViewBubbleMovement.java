@@ -0,0 +1,31 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.support.annotation.NonNull;
+import android.view.View;
+
+/**
+ * Moves a bubble view by setting its translation.
+ */
+public class ViewBubbleMovement implements BubbleMovement, CoalescingBubbleMovement.Target {
+    private final View view;
+
+    public ViewBubbleMovement(@NonNull View view) {
+        this.view = view;
+    }
+
+    @Override
+    public void moveX(float x, float velocity) {
+        view.setTranslationX(x);
+    }
+
+    @Override
+    public void moveY(float y, float velocity) {
+        view.setTranslationY(y);
+    }
+
+    @Override
+    public void applyPosition(float x, float y) {
+        view.setTranslationX(x);
+        view.setTranslationY(y);
+    }
+}
@@ -0,0 +1,60 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.support.annotation.NonNull;
+import android.view.View;
+import android.view.WindowManager;
+
+/**
+ * Moves a bubble hosted in its own window by updating the window position instead of the view's
+ * translation.
+ * <p>
+ * Every {@link WindowManager#updateViewLayout} is a call into the window manager service, so
+ * updates are coalesced to at most one per frame and skipped when the position did not change by
+ * at least a pixel. The window's layout params are reused for every update.
+ */
+public class WindowBubbleMovement extends CoalescingBubbleMovement {
+    private final WindowManager windowManager;
+    private final View view;
+    private final WindowManager.LayoutParams layoutParams;
+
+    private int windowUpdates;
+
+    /**
+     * @param view A view already added to {@code windowManager} with
+     *             {@link WindowManager.LayoutParams}.
+     */
+    public WindowBubbleMovement(@NonNull FrameSource frameSource, @NonNull WindowManager windowManager, @NonNull View view) {
+        super(frameSource);
+        this.windowManager = windowManager;
+        this.view = view;
+        layoutParams = (WindowManager.LayoutParams) view.getLayoutParams();
+        setPosition(layoutParams.x, layoutParams.y);
+    }
+
+    @Override
+    protected void onApplyPosition(float x, float y) {
+        final int windowX = Math.round(x);
+        final int windowY = Math.round(y);
+        if (windowX == layoutParams.x && windowY == layoutParams.y) {
+            return;
+        }
+        layoutParams.x = windowX;
+        layoutParams.y = windowY;
+        windowManager.updateViewLayout(view, layoutParams);
+        windowUpdates++;
+    }
+
+    /**
+     * @return Number of {@link WindowManager#updateViewLayout} calls issued since the last
+     * {@link #resetCounters()}.
+     */
+    public int getWindowUpdates() {
+        return windowUpdates;
+    }
+
+    @Override
+    public void resetCounters() {
+        super.resetCounters();
+        windowUpdates = 0;
+    }
+}
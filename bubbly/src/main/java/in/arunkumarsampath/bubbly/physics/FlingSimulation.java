@@ -0,0 +1,101 @@
+package in.arunkumarsampath.bubbly.physics;
+
+/**
+ * Decelerates a value by friction until its velocity drops below a threshold or it reaches one of
+ * its bounds, following the same model as {@code android.support.animation.FlingAnimation}.
+ */
+public final class FlingSimulation implements Simulation {
+    /**
+     * Friction applied for a friction scalar of 1, same as {@code FlingAnimation}.
+     */
+    private static final float UNIT_FRICTION = -4.2f;
+    /**
+     * Velocity below which a fling of pixels stops, same as {@code FlingAnimation} with a minimum
+     * visible change of one pixel.
+     */
+    public static final float DEFAULT_VELOCITY_THRESHOLD = 62.5f;
+
+    private float friction = UNIT_FRICTION;
+    private float velocityThreshold = DEFAULT_VELOCITY_THRESHOLD;
+    private float minValue = -Float.MAX_VALUE;
+    private float maxValue = Float.MAX_VALUE;
+
+    private float value;
+    private float velocity;
+
+    /**
+     * @param friction Friction scalar, higher values stop the fling sooner. Must be positive.
+     */
+    public FlingSimulation setFriction(float friction) {
+        if (friction <= 0) {
+            throw new IllegalArgumentException("Friction must be positive");
+        }
+        this.friction = friction * UNIT_FRICTION;
+        return this;
+    }
+
+    public float getFriction() {
+        return friction / UNIT_FRICTION;
+    }
+
+    public FlingSimulation setVelocityThreshold(float velocityThreshold) {
+        this.velocityThreshold = velocityThreshold;
+        return this;
+    }
+
+    public FlingSimulation setMinValue(float minValue) {
+        this.minValue = minValue;
+        return this;
+    }
+
+    public FlingSimulation setMaxValue(float maxValue) {
+        this.maxValue = maxValue;
+        return this;
+    }
+
+    public FlingSimulation setStartValue(float value) {
+        this.value = value;
+        return this;
+    }
+
+    public FlingSimulation setStartVelocity(float velocity) {
+        this.velocity = velocity;
+        return this;
+    }
+
+    @Override
+    public boolean step(long deltaTimeNanos) {
+        final float seconds = deltaTimeNanos / 1e9f;
+        final float decay = (float) Math.exp(seconds * friction);
+        value = value - velocity / friction + velocity / friction * decay;
+        velocity = velocity * decay;
+
+        if (value <= minValue) {
+            value = minValue;
+            return true;
+        }
+        if (value >= maxValue) {
+            value = maxValue;
+            return true;
+        }
+        return Math.abs(velocity) < velocityThreshold;
+    }
+
+    @Override
+    public float getValue() {
+        return value;
+    }
+
+    @Override
+    public float getVelocity() {
+        return velocity;
+    }
+
+    /**
+     * @return Where a fling starting at {@code value} with {@code velocity} comes to rest when not
+     * bounded, ignoring the velocity threshold.
+     */
+    public static float projectEndValue(float value, float velocity, float friction) {
+        return value - velocity / (friction * UNIT_FRICTION);
+    }
+}
@@ -0,0 +1,23 @@
+package in.arunkumarsampath.bubbly.physics;
+
+/**
+ * A one dimensional motion that is advanced by explicit time steps. Implementations are pure Java
+ * and deterministic, so the same sequence of steps always yields the same trajectory.
+ */
+public interface Simulation {
+
+    /**
+     * Advances the simulation.
+     *
+     * @param deltaTimeNanos Time elapsed since the previous step.
+     * @return True if the simulation reached its end and should not be stepped further.
+     */
+    boolean step(long deltaTimeNanos);
+
+    float getValue();
+
+    /**
+     * @return The current velocity, in units per second.
+     */
+    float getVelocity();
+}
@@ -0,0 +1,150 @@
+package in.arunkumarsampath.bubbly.physics;
+
+/**
+ * Moves a value towards a final position with a damped harmonic spring, following the same closed
+ * form solution as {@code android.support.animation.SpringForce}. Being closed form, the trajectory
+ * does not depend on how time is divided into steps.
+ */
+public final class SpringSimulation implements Simulation {
+    /**
+     * Same as {@code SpringForce.STIFFNESS_MEDIUM}.
+     */
+    public static final float DEFAULT_STIFFNESS = 1500f;
+    /**
+     * Same as {@code SpringForce.DAMPING_RATIO_MEDIUM_BOUNCY}.
+     */
+    public static final float DEFAULT_DAMPING_RATIO = 0.5f;
+    /**
+     * Distance from the final position below which the spring may settle, same as
+     * {@code SpringAnimation} with a minimum visible change of one pixel.
+     */
+    public static final float DEFAULT_VALUE_THRESHOLD = 0.75f;
+    private static final float VELOCITY_THRESHOLD_MULTIPLIER = 62.5f;
+
+    private double naturalFrequency = Math.sqrt(DEFAULT_STIFFNESS);
+    private double dampingRatio = DEFAULT_DAMPING_RATIO;
+    private float finalPosition;
+    private float valueThreshold = DEFAULT_VALUE_THRESHOLD;
+    private float velocityThreshold = DEFAULT_VALUE_THRESHOLD * VELOCITY_THRESHOLD_MULTIPLIER;
+
+    private float value;
+    private float velocity;
+
+    public SpringSimulation setStiffness(float stiffness) {
+        if (stiffness <= 0) {
+            throw new IllegalArgumentException("Spring stiffness constant must be positive.");
+        }
+        naturalFrequency = Math.sqrt(stiffness);
+        return this;
+    }
+
+    public float getStiffness() {
+        return (float) (naturalFrequency * naturalFrequency);
+    }
+
+    public SpringSimulation setDampingRatio(float dampingRatio) {
+        if (dampingRatio < 0) {
+            throw new IllegalArgumentException("Damping ratio must be non-negative");
+        }
+        this.dampingRatio = dampingRatio;
+        return this;
+    }
+
+    public float getDampingRatio() {
+        return (float) dampingRatio;
+    }
+
+    /**
+     * Sets the distance from the final position, and derived from it the velocity, below which the
+     * spring is considered at rest.
+     */
+    public SpringSimulation setValueThreshold(float valueThreshold) {
+        this.valueThreshold = Math.abs(valueThreshold);
+        velocityThreshold = this.valueThreshold * VELOCITY_THRESHOLD_MULTIPLIER;
+        return this;
+    }
+
+    public SpringSimulation setFinalPosition(float finalPosition) {
+        this.finalPosition = finalPosition;
+        return this;
+    }
+
+    public float getFinalPosition() {
+        return finalPosition;
+    }
+
+    public SpringSimulation setStartValue(float value) {
+        this.value = value;
+        return this;
+    }
+
+    public SpringSimulation setStartVelocity(float velocity) {
+        this.velocity = velocity;
+        return this;
+    }
+
+    @Override
+    public boolean step(long deltaTimeNanos) {
+        final double t = deltaTimeNanos / 1e9;
+        final double displacement0 = value - finalPosition;
+        final double velocity0 = velocity;
+        final double omega = naturalFrequency;
+
+        final double displacement;
+        final double currentVelocity;
+        if (dampingRatio > 1) {
+            // Over damped
+            final double root = omega * Math.sqrt(dampingRatio * dampingRatio - 1);
+            final double gammaPlus = -dampingRatio * omega + root;
+            final double gammaMinus = -dampingRatio * omega - root;
+            final double coeffB = (gammaMinus * displacement0 - velocity0) / (gammaMinus - gammaPlus);
+            final double coeffA = displacement0 - coeffB;
+            final double expPlus = Math.exp(gammaPlus * t);
+            final double expMinus = Math.exp(gammaMinus * t);
+            displacement = coeffA * expPlus + coeffB * expMinus;
+            currentVelocity = coeffA * gammaPlus * expPlus + coeffB * gammaMinus * expMinus;
+        } else if (dampingRatio == 1) {
+            // Critically damped
+            final double coeffA = displacement0;
+            final double coeffB = velocity0 + omega * displacement0;
+            final double decay = Math.exp(-omega * t);
+            displacement = (coeffA + coeffB * t) * decay;
+            currentVelocity = (coeffA + coeffB * t) * decay * -omega + coeffB * decay;
+        } else {
+            // Under damped
+            final double dampedFrequency = omega * Math.sqrt(1 - dampingRatio * dampingRatio);
+            final double cosCoeff = displacement0;
+            final double sinCoeff = (dampingRatio * omega * displacement0 + velocity0) / dampedFrequency;
+            final double decay = Math.exp(-dampingRatio * omega * t);
+            final double cos = Math.cos(dampedFrequency * t);
+            final double sin = Math.sin(dampedFrequency * t);
+            displacement = decay * (cosCoeff * cos + sinCoeff * sin);
+            currentVelocity = displacement * -omega * dampingRatio
+                    + decay * (-dampedFrequency * cosCoeff * sin + dampedFrequency * sinCoeff * cos);
+        }
+
+        value = (float) (displacement + finalPosition);
+        velocity = (float) currentVelocity;
+
+        if (isAtEquilibrium()) {
+            value = finalPosition;
+            velocity = 0;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean isAtEquilibrium() {
+        return Math.abs(velocity) < velocityThreshold && Math.abs(value - finalPosition) < valueThreshold;
+    }
+
+    @Override
+    public float getValue() {
+        return value;
+    }
+
+    @Override
+    public float getVelocity() {
+        return velocity;
+    }
+}
@@ -0,0 +1,160 @@
+package in.arunkumarsampath.bubbly.util;
+
+import android.content.ComponentCallbacks;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+import android.util.DisplayMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Process wide copy of the display metrics bubbles depend on, kept in primitive fields so touch
+ * handling never queries resources. Once {@link #register(Context) registered} the values are
+ * refreshed on every configuration change, such as a rotation or a foldable changing screens, and
+ * listeners are told when they changed.
+ * <p>
+ * Must be used on the main thread.
+ */
+public final class DisplayMetricsCache implements ComponentCallbacks {
+    private static DisplayMetricsCache instance;
+
+    public interface Listener {
+        void onDisplayMetricsChanged(@NonNull DisplayMetricsCache cache);
+    }
+
+    private final List<Listener> listeners = new ArrayList<>();
+
+    private Resources resources;
+    private boolean registered;
+
+    private float density;
+    private int widthPixels;
+    private int heightPixels;
+    private int screenWidthDp;
+
+    private DisplayMetricsCache(@NonNull Resources resources) {
+        this.resources = resources;
+        refresh();
+    }
+
+    /**
+     * @return The shared cache, initially read from the system resources.
+     */
+    @NonNull
+    public static DisplayMetricsCache getInstance() {
+        if (instance == null) {
+            instance = new DisplayMetricsCache(Resources.getSystem());
+        }
+        return instance;
+    }
+
+    /**
+     * @return The shared cache, registered to follow configuration changes of the application
+     * {@code context} belongs to.
+     */
+    @NonNull
+    public static DisplayMetricsCache getInstance(@NonNull Context context) {
+        final DisplayMetricsCache cache = getInstance();
+        cache.register(context);
+        return cache;
+    }
+
+    /**
+     * Drops the shared cache so the next {@link #getInstance()} starts over, for tests that run
+     * against a fresh application.
+     */
+    @VisibleForTesting
+    public static void resetInstance() {
+        instance = null;
+    }
+
+    /**
+     * Starts reading the metrics of the application's resources and refreshing them on
+     * configuration changes. Only the first call has an effect.
+     */
+    public void register(@NonNull Context context) {
+        if (registered) {
+            return;
+        }
+        final Context applicationContext = context.getApplicationContext();
+        final Context source = applicationContext != null ? applicationContext : context;
+        registered = true;
+        resources = source.getResources();
+        source.registerComponentCallbacks(this);
+        update();
+    }
+
+    public void addListener(@NonNull Listener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeListener(@NonNull Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public float getDensity() {
+        return density;
+    }
+
+    public int getWidthPixels() {
+        return widthPixels;
+    }
+
+    public int getHeightPixels() {
+        return heightPixels;
+    }
+
+    public int getScreenWidthDp() {
+        return screenWidthDp;
+    }
+
+    public int dpToPx(double dp) {
+        return (int) ((dp * density) + 0.5);
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        update();
+    }
+
+    @Override
+    public void onLowMemory() {
+    }
+
+    /**
+     * Re-reads the metrics and notifies listeners if any of them changed.
+     */
+    @VisibleForTesting
+    public void update() {
+        if (refresh()) {
+            // Iterate over a copy so listeners may remove themselves.
+            final Listener[] snapshot = listeners.toArray(new Listener[0]);
+            for (Listener listener : snapshot) {
+                listener.onDisplayMetricsChanged(this);
+            }
+        }
+    }
+
+    /**
+     * @return True if any of the values changed.
+     */
+    private boolean refresh() {
+        final DisplayMetrics metrics = resources.getDisplayMetrics();
+        final int newScreenWidthDp = resources.getConfiguration().screenWidthDp;
+        final boolean changed = metrics.density != density
+                || metrics.widthPixels != widthPixels
+                || metrics.heightPixels != heightPixels
+                || newScreenWidthDp != screenWidthDp;
+        density = metrics.density;
+        widthPixels = metrics.widthPixels;
+        heightPixels = metrics.heightPixels;
+        screenWidthDp = newScreenWidthDp;
+        return changed;
+    }
+}
@@ -1,16 +1,12 @@
 package in.arunkumarsampath.bubbly.util;
 
-import android.content.res.Resources;
-import android.util.DisplayMetrics;
-
 /**
  * Created by Arunkumar on 22/05/17.
  */
 
 public class Utils {
     public static int dpToPx(double dp) {
-        // resources instead of context !!
-        DisplayMetrics displayMetrics = Resources.getSystem().getDisplayMetrics();
-        return (int) ((dp * displayMetrics.density) + 0.5);
+        // Cached density instead of querying resources on every call.
+        return DisplayMetricsCache.getInstance().dpToPx(dp);
     }
 }
@@ -1,13 +1,21 @@
 package in.arunkumarsampath.bubbly.view;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Paint;
 import android.support.annotation.ColorInt;
+import android.support.annotation.IntDef;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.v4.content.ContextCompat;
 import android.util.AttributeSet;
 import android.view.View;
 
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
 import in.arunkumarsampath.bubbly.R;
 
 /**
@@ -15,11 +23,40 @@ import in.arunkumarsampath.bubbly.R;
  */
 public class CircleView extends View {
 
+    /**
+     * Draws the circle on the canvas every frame.
+     */
+    public static final int RENDER_MODE_DIRECT = 0;
+    /**
+     * Rasterises the circle into a bitmap once per size or colour change and draws the bitmap.
+     */
+    public static final int RENDER_MODE_CACHED_BITMAP = 1;
+    /**
+     * Draws the circle into a hardware layer that is only re-rendered when the view is invalidated.
+     */
+    public static final int RENDER_MODE_HARDWARE_LAYER = 2;
+
+    @IntDef({RENDER_MODE_DIRECT, RENDER_MODE_CACHED_BITMAP, RENDER_MODE_HARDWARE_LAYER})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface RenderMode {
+    }
+
     final Paint drawPaint;
 
     @ColorInt
     private int bgColor;
 
+    @RenderMode
+    private int renderMode = RENDER_MODE_DIRECT;
+    private boolean inMotion = true;
+
+    private float center;
+    private float outerRadius;
+
+    @Nullable
+    private Bitmap cachedBitmap;
+    private boolean cachedBitmapDirty;
+
     public CircleView(Context context) {
         this(context, null, 0);
     }
@@ -45,17 +82,122 @@ public class CircleView extends View {
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
+        center = w / 2f;
+        outerRadius = (float) (w / 2.4);
+        if (renderMode == RENDER_MODE_CACHED_BITMAP) {
+            releaseCachedBitmap();
+        }
         postInvalidate();
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-        float outerRadius = (float) (getMeasuredWidth() / 2.4);
-        canvas.drawCircle(getMeasuredWidth() / 2,
-                getMeasuredWidth() / 2,
-                outerRadius,
-                drawPaint);
+        if (renderMode == RENDER_MODE_CACHED_BITMAP) {
+            final Bitmap bitmap = getCachedBitmap();
+            if (bitmap != null) {
+                canvas.drawBitmap(bitmap, 0, 0, null);
+                return;
+            }
+        }
+        drawCircle(canvas);
+    }
+
+    private void drawCircle(@NonNull Canvas canvas) {
+        canvas.drawCircle(center, center, outerRadius, drawPaint);
+    }
+
+    /**
+     * @return The cached rendering of the circle, rasterised again if the size or colour changed.
+     * Null if the view has not been sized yet.
+     */
+    @Nullable
+    private Bitmap getCachedBitmap() {
+        final int size = getWidth();
+        if (size <= 0) {
+            return null;
+        }
+        if (cachedBitmap == null) {
+            cachedBitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+            cachedBitmapDirty = true;
+        }
+        if (cachedBitmapDirty) {
+            cachedBitmap.eraseColor(Color.TRANSPARENT);
+            drawCircle(new Canvas(cachedBitmap));
+            cachedBitmapDirty = false;
+        }
+        return cachedBitmap;
+    }
+
+    private void releaseCachedBitmap() {
+        if (cachedBitmap != null) {
+            cachedBitmap.recycle();
+            cachedBitmap = null;
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        releaseCachedBitmap();
+    }
+
+    /**
+     * @return Centre of the circle on both axes, in pixels.
+     */
+    float getCenter() {
+        return center;
+    }
+
+    float getOuterRadius() {
+        return outerRadius;
+    }
+
+    @RenderMode
+    public int getRenderMode() {
+        return renderMode;
+    }
+
+    /**
+     * Sets how the circle is rendered. {@link #RENDER_MODE_CACHED_BITMAP} and
+     * {@link #RENDER_MODE_HARDWARE_LAYER} avoid re-rendering the circle while the bubble moves,
+     * at the cost of the memory held by the bitmap or layer.
+     */
+    public void setRenderMode(@RenderMode int renderMode) {
+        if (this.renderMode == renderMode) {
+            return;
+        }
+        this.renderMode = renderMode;
+        if (renderMode != RENDER_MODE_CACHED_BITMAP) {
+            releaseCachedBitmap();
+        }
+        updateLayerType();
+        invalidate();
+    }
+
+    public boolean isInMotion() {
+        return inMotion;
+    }
+
+    /**
+     * Tells the view whether the bubble is moving. With {@link #RENDER_MODE_HARDWARE_LAYER} the
+     * layer is only held while moving, a resting bubble is drawn directly so its layer's memory is
+     * freed until the bubble moves again.
+     */
+    public void setInMotion(boolean inMotion) {
+        if (this.inMotion == inMotion) {
+            return;
+        }
+        this.inMotion = inMotion;
+        updateLayerType();
+    }
+
+    private void updateLayerType() {
+        final boolean hardwareLayer = renderMode == RENDER_MODE_HARDWARE_LAYER && inMotion;
+        final int layerType = hardwareLayer ? LAYER_TYPE_HARDWARE : LAYER_TYPE_NONE;
+        if (getLayerType() != layerType) {
+            setLayerType(layerType, null);
+        }
     }
 
     @ColorInt
@@ -64,8 +206,12 @@ public class CircleView extends View {
     }
 
     public void setColor(@ColorInt int color) {
+        if (bgColor == color) {
+            return;
+        }
         bgColor = color;
         drawPaint.setColor(color);
+        cachedBitmapDirty = true;
         invalidate();
     }
 }
@@ -0,0 +1,81 @@
+package in.arunkumarsampath.bubbly.view;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.v4.util.LruCache;
+
+/**
+ * Process wide cache of circular cropped bubble images, bounded by the bytes held by the bitmaps.
+ * Entries are keyed by the image source and the pixel size they were cropped to, so the same avatar
+ * shown at different sizes is cached separately.
+ */
+public class CircularBitmapCache extends LruCache<CircularBitmapCache.Key, Bitmap> {
+    /**
+     * Fraction of the heap the shared cache may use.
+     */
+    private static final int HEAP_FRACTION = 8;
+
+    private static CircularBitmapCache instance;
+
+    public CircularBitmapCache(int maxBytes) {
+        super(maxBytes);
+    }
+
+    @NonNull
+    public static synchronized CircularBitmapCache getInstance() {
+        if (instance == null) {
+            final long maxBytes = Runtime.getRuntime().maxMemory() / HEAP_FRACTION;
+            instance = new CircularBitmapCache((int) Math.min(maxBytes, Integer.MAX_VALUE));
+        }
+        return instance;
+    }
+
+    @Override
+    protected int sizeOf(@NonNull Key key, @NonNull Bitmap value) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            return value.getAllocationByteCount();
+        }
+        return value.getByteCount();
+    }
+
+    /**
+     * Identifies a cropped image by its source and size in pixels.
+     */
+    public static final class Key {
+        private final String source;
+        private final int sizePx;
+
+        public Key(@NonNull String source, int sizePx) {
+            this.source = source;
+            this.sizePx = sizePx;
+        }
+
+        @NonNull
+        public String getSource() {
+            return source;
+        }
+
+        public int getSizePx() {
+            return sizePx;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Key key = (Key) o;
+            return sizePx == key.sizePx && source.equals(key.source);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * source.hashCode() + sizePx;
+        }
+
+        @Override
+        public String toString() {
+            return source + "@" + sizePx + "px";
+        }
+    }
+}
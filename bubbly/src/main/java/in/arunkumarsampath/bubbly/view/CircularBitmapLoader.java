@@ -0,0 +1,177 @@
+package in.arunkumarsampath.bubbly.view;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Shader;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Decodes images and crops them into circles on a background thread, caching the results in
+ * {@link CircularBitmapCache}.
+ */
+final class CircularBitmapLoader {
+    private static final String TAG = CircularBitmapLoader.class.getSimpleName();
+
+    interface Callback {
+        /**
+         * Called on the main thread once the image is available.
+         *
+         * @param bitmap The cropped image, or null if it could not be decoded.
+         */
+        void onLoaded(@NonNull CircularBitmapCache.Key key, @Nullable Bitmap bitmap);
+    }
+
+    /**
+     * A decode in progress. Cancelling it drops the reference to its callback right away, the
+     * decode itself still completes and caches its result.
+     */
+    static final class Request {
+        @NonNull
+        private final CircularBitmapCache.Key key;
+        /**
+         * Only accessed on the main thread, null once delivered or cancelled.
+         */
+        @Nullable
+        private Callback callback;
+
+        private Request(@NonNull CircularBitmapCache.Key key, @NonNull Callback callback) {
+            this.key = key;
+            this.callback = callback;
+        }
+
+        void cancel() {
+            callback = null;
+        }
+
+        private void deliver(@Nullable Bitmap bitmap) {
+            final Callback callback = this.callback;
+            if (callback != null) {
+                this.callback = null;
+                callback.onLoaded(key, bitmap);
+            }
+        }
+    }
+
+    private static final ExecutorService DECODE_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "bubbly-decode");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private CircularBitmapLoader() {
+    }
+
+    /**
+     * Delivers the cropped image for {@code key} to {@code callback}, decoding it from
+     * {@code resolver} if it is not cached yet. Cached images are delivered synchronously.
+     *
+     * @return The decode in progress, or null if the image was delivered synchronously.
+     */
+    @Nullable
+    static Request load(@NonNull ContentResolver resolver,
+                        @NonNull CircularBitmapCache cache,
+                        @NonNull CircularBitmapCache.Key key,
+                        @NonNull Callback callback) {
+        final Bitmap cached = cache.get(key);
+        if (cached != null) {
+            callback.onLoaded(key, cached);
+            return null;
+        }
+        final Request request = new Request(key, callback);
+        DECODE_EXECUTOR.execute(() -> {
+            Bitmap bitmap = cache.get(key);
+            if (bitmap == null) {
+                bitmap = decodeCircular(resolver, Uri.parse(key.getSource()), key.getSizePx());
+                if (bitmap != null) {
+                    cache.put(key, bitmap);
+                }
+            }
+            final Bitmap result = bitmap;
+            MAIN_HANDLER.post(() -> request.deliver(result));
+        });
+        return request;
+    }
+
+    @WorkerThread
+    @Nullable
+    private static Bitmap decodeCircular(@NonNull ContentResolver resolver, @NonNull Uri uri, int sizePx) {
+        try {
+            final BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            try (InputStream stream = resolver.openInputStream(uri)) {
+                BitmapFactory.decodeStream(stream, null, options);
+            }
+            if (options.outWidth <= 0 || options.outHeight <= 0) {
+                return null;
+            }
+            options.inSampleSize = sampleSize(options.outWidth, options.outHeight, sizePx);
+            options.inJustDecodeBounds = false;
+
+            final Bitmap source;
+            try (InputStream stream = resolver.openInputStream(uri)) {
+                source = BitmapFactory.decodeStream(stream, null, options);
+            }
+            if (source == null) {
+                return null;
+            }
+            final Bitmap cropped = cropCircle(source, sizePx);
+            source.recycle();
+            return cropped;
+        } catch (IOException | SecurityException e) {
+            Log.w(TAG, "Could not decode " + uri, e);
+            return null;
+        }
+    }
+
+    /**
+     * @return The largest power of two sample size that keeps the shorter side at least
+     * {@code sizePx} pixels.
+     */
+    static int sampleSize(int width, int height, int sizePx) {
+        int sampleSize = 1;
+        final int shortSide = Math.min(width, height);
+        while (shortSide / (sampleSize * 2) >= sizePx) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * Centre crops {@code source} into a {@code sizePx} square and clips it into a circle.
+     */
+    @NonNull
+    private static Bitmap cropCircle(@NonNull Bitmap source, int sizePx) {
+        final Bitmap output = Bitmap.createBitmap(sizePx, sizePx, Bitmap.Config.ARGB_8888);
+
+        final float scale = (float) sizePx / Math.min(source.getWidth(), source.getHeight());
+        final Matrix matrix = new Matrix();
+        matrix.setScale(scale, scale);
+        matrix.postTranslate((sizePx - source.getWidth() * scale) / 2f, (sizePx - source.getHeight() * scale) / 2f);
+
+        final BitmapShader shader = new BitmapShader(source, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP);
+        shader.setLocalMatrix(matrix);
+
+        final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+        paint.setShader(shader);
+        new Canvas(output).drawCircle(sizePx / 2f, sizePx / 2f, sizePx / 2f, paint);
+        return output;
+    }
+}
@@ -0,0 +1,145 @@
+package in.arunkumarsampath.bubbly.view;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.AttributeSet;
+
+/**
+ * A bubble showing a circular image, such as a user avatar. Images are decoded and cropped off the
+ * main thread and shared through {@link CircularBitmapCache}. Until the image is available the
+ * bubble draws the plain circle of {@link CircleView}.
+ */
+public class ImageBubbleView extends CircleView implements CircularBitmapLoader.Callback {
+
+    @NonNull
+    private CircularBitmapCache cache = CircularBitmapCache.getInstance();
+
+    @Nullable
+    private Uri imageUri;
+    @Nullable
+    private CircularBitmapCache.Key requestedKey;
+    /**
+     * The decode of {@link #requestedKey} in progress, cancelled once the view is detached so the
+     * decode thread does not keep the view alive.
+     */
+    @Nullable
+    private CircularBitmapLoader.Request pendingRequest;
+    @Nullable
+    private Bitmap bitmap;
+
+    public ImageBubbleView(Context context) {
+        this(context, null, 0);
+    }
+
+    public ImageBubbleView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public ImageBubbleView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    /**
+     * Sets the cache images are loaded from, {@link CircularBitmapCache#getInstance()} by default.
+     */
+    public void setBitmapCache(@NonNull CircularBitmapCache cache) {
+        this.cache = cache;
+        requestImage();
+    }
+
+    /**
+     * Shows the image at {@code uri}, which can be any uri supported by
+     * {@link android.content.ContentResolver#openInputStream(Uri)}. Pass null to clear the image.
+     */
+    public void setImageUri(@Nullable Uri uri) {
+        if (uri == null ? imageUri == null : uri.equals(imageUri)) {
+            return;
+        }
+        imageUri = uri;
+        requestImage();
+    }
+
+    @Nullable
+    public Uri getImageUri() {
+        return imageUri;
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        requestImage();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        requestImage();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (pendingRequest != null) {
+            cancelPendingRequest();
+            // Requested again once attached.
+            requestedKey = null;
+        }
+    }
+
+    private void requestImage() {
+        final int sizePx = Math.round(getOuterRadius() * 2);
+        if (imageUri == null || sizePx <= 0) {
+            cancelPendingRequest();
+            requestedKey = null;
+            setBitmap(null);
+            return;
+        }
+        final CircularBitmapCache.Key key = new CircularBitmapCache.Key(imageUri.toString(), sizePx);
+        if (key.equals(requestedKey)) {
+            return;
+        }
+        cancelPendingRequest();
+        requestedKey = key;
+        pendingRequest = CircularBitmapLoader.load(getContext().getContentResolver(), cache, key, this);
+    }
+
+    private void cancelPendingRequest() {
+        if (pendingRequest != null) {
+            pendingRequest.cancel();
+            pendingRequest = null;
+        }
+    }
+
+    @Override
+    public void onLoaded(@NonNull CircularBitmapCache.Key key, @Nullable Bitmap bitmap) {
+        pendingRequest = null;
+        setBitmap(bitmap);
+    }
+
+    @VisibleForTesting
+    boolean hasPendingRequest() {
+        return pendingRequest != null;
+    }
+
+    private void setBitmap(@Nullable Bitmap bitmap) {
+        if (this.bitmap != bitmap) {
+            this.bitmap = bitmap;
+            invalidate();
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (bitmap == null) {
+            super.onDraw(canvas);
+            return;
+        }
+        final float left = getCenter() - bitmap.getWidth() / 2f;
+        canvas.drawBitmap(bitmap, left, left, null);
+    }
+}
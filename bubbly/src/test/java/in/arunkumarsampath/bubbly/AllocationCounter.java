@@ -0,0 +1,45 @@
+package in.arunkumarsampath.bubbly;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures bytes allocated by the current thread using the HotSpot specific thread MX bean. Tests
+ * should {@link org.junit.Assume} {@link #isSupported()} before relying on the counts.
+ */
+public final class AllocationCounter {
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final int MEASURED_RUNS = 3;
+
+    private AllocationCounter() {
+    }
+
+    public static boolean isSupported() {
+        return THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).isThreadAllocatedMemorySupported();
+    }
+
+    /**
+     * @return Total bytes allocated by the current thread so far.
+     */
+    public static long allocatedBytes() {
+        final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Runs {@code runnable} once to warm up and then returns the fewest bytes it allocated over a
+     * few more runs, so one off allocations of the JVM itself, such as while the first test of a
+     * run resolves classes, are not counted.
+     */
+    public static long measure(Runnable runnable) {
+        runnable.run();
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            final long before = allocatedBytes();
+            runnable.run();
+            min = Math.min(min, allocatedBytes() - before);
+        }
+        return min;
+    }
+}
@@ -0,0 +1,151 @@
+package in.arunkumarsampath.bubbly;
+
+import android.content.Context;
+import android.content.Intent;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ServiceController;
+import org.robolectric.shadow.api.Shadow;
+import org.robolectric.shadows.ShadowWindowManagerImpl;
+
+import in.arunkumarsampath.bubbly.base.BubbleMovementManager;
+import in.arunkumarsampath.bubbly.base.ManualFrameSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class BubblyServiceTest {
+    private ServiceController<BubblyService> controller;
+    private BubblyService service;
+    private BubblyService.BubblyBinder binder;
+    private ShadowWindowManagerImpl windowManager;
+
+    @Before
+    public void setUp() {
+        controller = Robolectric.buildService(BubblyService.class).create();
+        service = controller.get();
+        binder = (BubblyService.BubblyBinder) service.onBind(new Intent(service, BubblyService.class));
+        windowManager = Shadow.extract(service.getSystemService(Context.WINDOW_SERVICE));
+    }
+
+    @Test
+    public void create_attachesNoWindows() {
+        assertTrue(windowManager.getViews().isEmpty());
+        assertNull(service.getMovementManager());
+    }
+
+    @Test
+    public void addBubble_attachesWindowLazily() {
+        final View bubble = new View(service);
+        binder.addBubble(bubble);
+
+        assertEquals(1, windowManager.getViews().size());
+        assertTrue(windowManager.getViews().contains(bubble));
+        assertNotNull(service.getMovementManager());
+    }
+
+    @Test
+    public void addBubble_twice_attachesOnce() {
+        final View bubble = new View(service);
+        binder.addBubble(bubble);
+        binder.addBubble(bubble);
+
+        assertEquals(1, windowManager.getViews().size());
+        assertEquals(1, binder.getBubbles().size());
+    }
+
+    @Test
+    public void removeBubble_rebuildsMovementManagerForRemainingBubbles() {
+        final View first = new View(service);
+        final View second = new View(service);
+        binder.addBubble(first);
+        binder.addBubble(second);
+
+        assertEquals(2, windowManager.getViews().size());
+        final BubbleMovementManager both = service.getMovementManager();
+        assertNotNull(both);
+
+        binder.removeBubble(second);
+        assertEquals(1, windowManager.getViews().size());
+        assertNotNull(service.getMovementManager());
+        assertNotSame(both, service.getMovementManager());
+    }
+
+    @Test
+    public void removeFollower_midDrag_doesNotUpdateDetachedWindow() {
+        final ManualFrameSource frameSource = new ManualFrameSource();
+        service.setFrameSource(frameSource);
+        final View master = new View(service);
+        final View follower = new View(service);
+        binder.addBubble(master);
+        binder.addBubble(follower);
+
+        dispatchTouch(master, MotionEvent.ACTION_DOWN, 0, 0, 0);
+        dispatchTouch(master, MotionEvent.ACTION_MOVE, 16, 200, 100);
+        // Runs after the chain stepped in the same frame, while the follower's update is pending.
+        frameSource.postFrameCallback(frameTimeNanos -> binder.removeBubble(follower));
+        frameSource.runUntilIdle(100);
+        dispatchTouch(master, MotionEvent.ACTION_UP, 32, 200, 100);
+        frameSource.runUntilIdle(1000);
+
+        assertEquals(1, windowManager.getViews().size());
+        assertTrue(windowManager.getViews().contains(master));
+    }
+
+    @Test
+    public void removeLastBubble_detachesEverything() {
+        final View bubble = new View(service);
+        binder.addBubble(bubble);
+        binder.removeBubble(bubble);
+
+        assertTrue(windowManager.getViews().isEmpty());
+        assertNull(service.getMovementManager());
+        assertTrue(binder.getBubbles().isEmpty());
+    }
+
+    @Test
+    public void addBubble_afterIdle_reattaches() {
+        final View bubble = new View(service);
+        binder.addBubble(bubble);
+        binder.removeBubble(bubble);
+        binder.addBubble(bubble);
+
+        assertEquals(1, windowManager.getViews().size());
+        assertNotNull(service.getMovementManager());
+    }
+
+    @Test
+    public void restartMovement_createsNewManager() {
+        binder.addBubble(new View(service));
+        final Object first = service.getMovementManager();
+        binder.addBubble(new View(service));
+
+        assertNotSame(first, service.getMovementManager());
+    }
+
+    @Test
+    public void destroy_detachesAllBubbles() {
+        binder.addBubble(new View(service));
+        binder.addBubble(new View(service));
+        controller.destroy();
+
+        assertTrue(windowManager.getViews().isEmpty());
+        assertNull(service.getMovementManager());
+    }
+
+    private static void dispatchTouch(View view, int action, long time, float x, float y) {
+        final MotionEvent event = MotionEvent.obtain(0, time, action, x, y, 0);
+        view.dispatchTouchEvent(event);
+        event.recycle();
+    }
+}
@@ -0,0 +1,256 @@
+package in.arunkumarsampath.bubbly.base;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import in.arunkumarsampath.bubbly.AllocationCounter;
+import in.arunkumarsampath.bubbly.physics.SpringSimulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BubbleChainTest {
+
+    @Test
+    public void followers_settleOnLeader() {
+        final ManualFrameSource frameSource = new ManualFrameSource();
+        final List<RecordingMovement> followers = followers(3);
+        final BubbleChain chain = new BubbleChain(frameSource, followers);
+
+        chain.setLeaderX(300);
+        chain.setLeaderY(-200);
+        final int frames = frameSource.runUntilIdle(600);
+
+        assertTrue("Chain did not settle in " + frames + " frames", frames < 600);
+        assertFalse(chain.isRunning());
+        for (RecordingMovement follower : followers) {
+            assertEquals(300, follower.x, 0);
+            assertEquals(-200, follower.y, 0);
+        }
+    }
+
+    @Test
+    public void followers_trailTheirPredecessor() {
+        final ManualFrameSource frameSource = new ManualFrameSource();
+        final BubbleChain chain = new BubbleChain(frameSource, followers(3));
+
+        chain.setLeaderX(1000);
+        for (int i = 0; i < 5; i++) {
+            frameSource.doFrame();
+        }
+
+        assertTrue(chain.getX(0) > chain.getX(1));
+        assertTrue(chain.getX(1) > chain.getX(2));
+        assertTrue(chain.getX(2) > 0);
+    }
+
+    @Test
+    public void singleFollower_movesLikeSpringSimulation() {
+        final ManualFrameSource frameSource = new ManualFrameSource();
+        final List<RecordingMovement> followers = followers(1);
+        final BubbleChain chain = new BubbleChain(frameSource, followers, 800, 0.6f);
+        final SpringSimulation spring = new SpringSimulation()
+                .setStiffness(800)
+                .setDampingRatio(0.6f)
+                .setFinalPosition(300);
+
+        chain.setLeaderX(300);
+        for (int i = 0; i < 10; i++) {
+            frameSource.doFrame();
+            spring.step(ManualFrameSource.FRAME_INTERVAL_NANOS);
+        }
+
+        assertEquals(spring.getValue(), followers.get(0).x, 0.5f);
+    }
+
+    @Test
+    public void stifferSpring_settlesSooner() {
+        final int[] frames = new int[2];
+        final float[] stiffnesses = {200, 1500};
+        for (int i = 0; i < stiffnesses.length; i++) {
+            final ManualFrameSource frameSource = new ManualFrameSource();
+            final BubbleChain chain = new BubbleChain(frameSource, followers(3), stiffnesses[i], 0.5f);
+            chain.setLeaderX(300);
+            frames[i] = frameSource.runUntilIdle(600);
+        }
+
+        assertTrue(frames[1] + " vs " + frames[0], frames[1] < frames[0]);
+    }
+
+    @Test
+    public void stop_removesFrameCallback() {
+        final ManualFrameSource frameSource = new ManualFrameSource();
+        final BubbleChain chain = new BubbleChain(frameSource, followers(2));
+
+        chain.setLeaderX(100);
+        chain.stop();
+
+        assertFalse(frameSource.hasPendingCallbacks());
+    }
+
+    @Test
+    public void restListener_runsOnceWhenSettled() {
+        final ManualFrameSource frameSource = new ManualFrameSource();
+        final BubbleChain chain = new BubbleChain(frameSource, followers(2));
+        final int[] rests = new int[1];
+        chain.setRestListener(() -> {
+            assertFalse(chain.isRunning());
+            rests[0]++;
+        });
+
+        chain.setLeaderX(200);
+        frameSource.doFrame();
+        assertEquals(0, rests[0]);
+        frameSource.runUntilIdle(600);
+        assertEquals(1, rests[0]);
+
+        // Stopping is not coming to rest.
+        chain.setLeaderX(0);
+        frameSource.doFrame();
+        chain.stop();
+        assertEquals(1, rests[0]);
+    }
+
+    @Test
+    public void frameWork_isLinearInBubbleCount() {
+        final int frames = 10;
+        final int[] counts = new int[]{1, 10, 20};
+        for (int count : counts) {
+            final ManualFrameSource frameSource = new ManualFrameSource();
+            final List<RecordingMovement> followers = followers(count);
+            final BubbleChain chain = new BubbleChain(frameSource, followers);
+
+            chain.setLeaderX(500);
+            chain.setLeaderY(500);
+            for (int i = 0; i < frames; i++) {
+                frameSource.doFrame();
+            }
+
+            int moves = 0;
+            for (RecordingMovement follower : followers) {
+                moves += follower.moves;
+            }
+            // Exactly one x and one y update per follower per frame, from one shared callback.
+            assertEquals(2 * count * frames, moves);
+        }
+    }
+
+    @Test
+    public void expand_springsFollowersToTargetsOneAfterAnother() {
+        final ManualFrameSource frameSource = new ManualFrameSource();
+        final List<RecordingMovement> followers = followers(3);
+        final BubbleChain chain = new BubbleChain(frameSource, followers);
+        final float[] xs = {100, 200, 300};
+        final float[] ys = {0, 0, 50};
+
+        chain.expand(xs, ys, 0.016f);
+        assertTrue(chain.isExpanded());
+        frameSource.doFrame();
+        assertTrue(chain.getX(0) > 0);
+        // The others have not set off yet.
+        assertEquals(0, chain.getX(1), 0);
+        assertEquals(0, chain.getX(2), 0);
+        frameSource.doFrame();
+        assertTrue(chain.getX(1) > 0);
+        assertEquals(0, chain.getX(2), 0);
+
+        frameSource.runUntilIdle(600);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(xs[i], followers.get(i).x, 0);
+            assertEquals(ys[i], followers.get(i).y, 0);
+        }
+
+        // Moving the leader does not pull an expanded chain along.
+        chain.setLeaderX(-400);
+        frameSource.runUntilIdle(600);
+        assertEquals(xs[0], followers.get(0).x, 0);
+
+        chain.collapse();
+        assertFalse(chain.isExpanded());
+        frameSource.runUntilIdle(600);
+        for (RecordingMovement follower : followers) {
+            assertEquals(-400, follower.x, 0);
+            assertEquals(0, follower.y, 0);
+        }
+    }
+
+    @Test
+    public void expandAndCollapse_costScalesLinearlyInBubbleCount() {
+        final int[] counts = new int[]{10, 50, 200};
+        for (int c = 0; c < counts.length; c++) {
+            final int count = counts[c];
+            final ManualFrameSource frameSource = new ManualFrameSource();
+            final List<RecordingMovement> followers = followers(count);
+            final BubbleChain chain = new BubbleChain(frameSource, followers);
+            final float[] xs = new float[count];
+            final float[] ys = new float[count];
+            final long[] frameTimeNanos = new long[1];
+            final int[] frames = new int[1];
+            final Runnable expandAndCollapse = () -> {
+                frames[0] = 0;
+                ExpandedLayout.layoutRows(0, 0, 980, 1820, 0, 0, 108, count, xs, ys);
+                chain.expand(xs, ys, 0.016f);
+                frames[0] += settle(chain, frameTimeNanos);
+                chain.collapse();
+                frames[0] += settle(chain, frameTimeNanos);
+            };
+
+            // Exactly one x and one y update per follower per frame, from one shared callback.
+            for (RecordingMovement follower : followers) {
+                follower.moves = 0;
+            }
+            expandAndCollapse.run();
+            int moves = 0;
+            for (RecordingMovement follower : followers) {
+                moves += follower.moves;
+            }
+            assertEquals(2 * count * frames[0], moves);
+
+            if (AllocationCounter.isSupported()) {
+                assertEquals(0, AllocationCounter.measure(expandAndCollapse));
+            }
+        }
+    }
+
+    /**
+     * Steps the chain frame by frame, without the manual frame source which allocates per frame.
+     */
+    private static int settle(BubbleChain chain, long[] frameTimeNanos) {
+        int frames = 0;
+        while (chain.isRunning() && frames < 10_000) {
+            frameTimeNanos[0] += ManualFrameSource.FRAME_INTERVAL_NANOS;
+            chain.doFrame(frameTimeNanos[0]);
+            frames++;
+        }
+        return frames;
+    }
+
+    private static List<RecordingMovement> followers(int count) {
+        final List<RecordingMovement> followers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            followers.add(new RecordingMovement());
+        }
+        return followers;
+    }
+
+    private static class RecordingMovement implements BubbleMovement {
+        float x;
+        float y;
+        int moves;
+
+        @Override
+        public void moveX(float x, float velocity) {
+            this.x = x;
+            moves++;
+        }
+
+        @Override
+        public void moveY(float y, float velocity) {
+            this.y = y;
+            moves++;
+        }
+    }
+}
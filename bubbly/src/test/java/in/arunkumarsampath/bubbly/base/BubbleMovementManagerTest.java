@@ -0,0 +1,636 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.content.Context;
+import android.graphics.Rect;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import in.arunkumarsampath.bubbly.AllocationCounter;
+import in.arunkumarsampath.bubbly.util.DisplayMetricsCache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class BubbleMovementManagerTest {
+    private ManualFrameSource frameSource;
+    private View bubble;
+    private BubbleMovementManager manager;
+
+    @Before
+    public void setUp() {
+        DisplayMetricsCache.resetInstance();
+        final Context context = RuntimeEnvironment.application;
+        bubble = new View(context);
+        bubble.layout(0, 0, 100, 100);
+
+        final List<View> bubbles = new ArrayList<>();
+        bubbles.add(bubble);
+        frameSource = new ManualFrameSource();
+        manager = new BubbleMovementManager(context, bubbles, new Rect(0, 0, 1080, 1920),
+                BubbleMovementManager.VIEW_MOVEMENT_FACTORY, MovementConfig.DEFAULT, frameSource);
+        manager.start();
+    }
+
+    @After
+    public void tearDown() {
+        manager.stop();
+        RuntimeEnvironment.application.unregisterComponentCallbacks(DisplayMetricsCache.getInstance());
+        DisplayMetricsCache.resetInstance();
+    }
+
+    @Test
+    public void fling_reusesAnimationInstances() {
+        manager.fling(3000, -2000);
+        final PhysicsAnimation xFling = manager.getXFlingAnimation();
+        final PhysicsAnimation yFling = manager.getYFlingAnimation();
+        final PhysicsAnimation xSticky = manager.getXStickyAnimation();
+        final PhysicsAnimation ySticky = manager.getYStickyAnimation();
+
+        manager.fling(-3000, 2000);
+
+        assertSame(xFling, manager.getXFlingAnimation());
+        assertSame(yFling, manager.getYFlingAnimation());
+        assertSame(xSticky, manager.getXStickyAnimation());
+        assertSame(ySticky, manager.getYStickyAnimation());
+    }
+
+    @Test
+    public void fling_allocatesNothingAfterWarmUp() {
+        assumeTrue(AllocationCounter.isSupported());
+
+        // Every fling retargets the same animations, simulations and listeners.
+        assertEquals(0, AllocationCounter.measure(() -> manager.fling(3000, -2000)));
+    }
+
+    @Test
+    public void fling_towardsRight_docksToRightEdge() {
+        manager.fling(3000, 500);
+        final int frames = frameSource.runUntilIdle(1000);
+
+        assertTrue(frames < 1000);
+        assertEquals(1080 - 100, manager.getMasterX(), 0);
+        assertEquals(1080 - 100, bubble.getTranslationX(), 0);
+    }
+
+    @Test
+    public void fling_towardsLeft_docksToLeftEdge() {
+        manager.moveX(600, 0);
+        manager.fling(-3000, 0);
+        frameSource.runUntilIdle(1000);
+
+        assertEquals(0, manager.getMasterX(), 0);
+        assertEquals(0, bubble.getTranslationX(), 0);
+    }
+
+    @Test
+    public void fling_isDeterministic() {
+        manager.fling(2500, -1200);
+        final int frames = frameSource.runUntilIdle(1000);
+        final float y = manager.getMasterY();
+
+        manager.moveX(0, 0);
+        manager.moveY(0, 0);
+        frameSource.runUntilIdle(1);
+        manager.fling(2500, -1200);
+
+        assertEquals(frames, frameSource.runUntilIdle(1000));
+        assertEquals(y, manager.getMasterY(), 0);
+    }
+
+    @Test
+    public void drag_withoutPrediction_followsLastTouch() {
+        assertFalse(manager.isTouchPredictionEnabled());
+
+        drag(10);
+
+        // 10 moves of 16px past the slop, the bubble sits exactly under the last touch.
+        assertEquals(160, manager.getMasterX(), 0);
+    }
+
+    @Test
+    public void drag_withPrediction_leadsLastTouch() {
+        manager.setTouchPredictionEnabled(true);
+        assertTrue(manager.isTouchPredictionEnabled());
+
+        drag(10);
+
+        // The finger moves at 2 px/ms, so a frame of prediction places the bubble ~32px ahead.
+        assertTrue(String.valueOf(manager.getMasterX()), manager.getMasterX() > 160 + 2 * 10);
+        assertTrue(String.valueOf(manager.getMasterX()), manager.getMasterX() < 160 + 2 * 20);
+        assertEquals(0, manager.getMasterY(), 0.01);
+    }
+
+    @Test
+    public void fling_towardsMagnet_springsOntoIt() {
+        final SnapTarget magnet = manager.getSnapTargets().addPoint(490, 300, 120);
+        manager.moveX(480, 0);
+        manager.moveY(1500, 0);
+
+        manager.fling(0, -2400);
+        assertFalse(manager.getYFlingAnimation().isRunning());
+        frameSource.runUntilIdle(1000);
+
+        assertEquals(magnet.getX(), manager.getMasterX(), 0);
+        assertEquals(magnet.getY(), manager.getMasterY(), 0);
+    }
+
+    @Test
+    public void addCorners_beforeFirstDock_useBounds() {
+        manager.getSnapTargets().setEdges(SnapTargetRegistry.EDGES_ALL);
+        manager.getSnapTargets().addCorners(150);
+        manager.moveX(900, 0);
+        manager.moveY(1750, 0);
+
+        releaseWithoutFling(bubble);
+        frameSource.runUntilIdle(1000);
+
+        assertEquals(1080 - 100, manager.getMasterX(), 0);
+        assertEquals(1920 - 100, manager.getMasterY(), 0);
+    }
+
+    @Test
+    public void release_belowBounds_docksUsingBubbleHeight() {
+        // A bubble wider than it is tall must rest fully inside the bottom of the bounds.
+        bubble.layout(0, 0, 100, 60);
+        manager.moveY(1950, 0);
+
+        releaseWithoutFling(bubble);
+        frameSource.runUntilIdle(1000);
+
+        assertEquals(0, manager.getMasterX(), 0);
+        assertEquals(1920 - 60, manager.getMasterY(), 0);
+    }
+
+    @Test
+    public void dragOntoDismissZone_snapsAndDismissesOnRelease() {
+        final DismissZone zone = new DismissZone(160, 0, 40);
+        final int[] dismissed = new int[1];
+        zone.setListener(new DismissZone.Listener() {
+            @Override
+            public void onEnterDismissZone() {
+            }
+
+            @Override
+            public void onExitDismissZone() {
+            }
+
+            @Override
+            public void onDismiss() {
+                dismissed[0]++;
+            }
+        });
+        manager.setDismissZone(zone);
+
+        drag(8);
+        assertTrue(zone.isInside());
+        // Held by the zone rather than following the finger to 128px.
+        drag(10, 8);
+        frameSource.runUntilIdle(1000);
+        assertEquals(160, manager.getMasterX(), 0);
+        assertEquals(0, manager.getMasterY(), 0);
+
+        final MotionEvent up = MotionEvent.obtain(0, 8 * 11, MotionEvent.ACTION_UP, 50 + 16 * 10, 50, 0);
+        bubble.dispatchTouchEvent(up);
+        up.recycle();
+        frameSource.runUntilIdle(1000);
+
+        assertEquals(1, dismissed[0]);
+        assertEquals(160, manager.getMasterX(), 0);
+    }
+
+    @Test
+    public void configs_doNotAffectOtherManagers() {
+        final View otherBubble = new View(RuntimeEnvironment.application);
+        otherBubble.layout(0, 0, 100, 100);
+        final List<View> others = new ArrayList<>();
+        others.add(otherBubble);
+        final MovementConfig stiff = MovementConfig.DEFAULT.buildUpon()
+                .setSpringStiffness(1500f)
+                .setSpringDampingRatio(1f)
+                .build();
+        final BubbleMovementManager other = new BubbleMovementManager(RuntimeEnvironment.application, others,
+                new Rect(0, 0, 1080, 1920), BubbleMovementManager.VIEW_MOVEMENT_FACTORY, stiff, frameSource);
+        assertSame(stiff, other.getConfig());
+        assertSame(MovementConfig.DEFAULT, manager.getConfig());
+
+        // The same release settles much faster with the stiffer, critically damped springs.
+        manager.moveX(300, 0);
+        other.moveX(300, 0);
+        releaseWithoutFling(bubble);
+        final int defaultFrames = frameSource.runUntilIdle(1000);
+        releaseWithoutFling(otherBubble);
+        final int stiffFrames = frameSource.runUntilIdle(1000);
+        other.stop();
+
+        assertEquals(0, manager.getMasterX(), 0);
+        assertEquals(0, other.getMasterX(), 0);
+        assertTrue(stiffFrames + " vs " + defaultFrames, stiffFrames < defaultFrames);
+    }
+
+    @Test
+    @Config(qualifiers = "w360dp-h640dp-port-xxhdpi")
+    public void displayBounds_followRotation() {
+        final View displayBubble = new View(RuntimeEnvironment.application);
+        displayBubble.layout(0, 0, 100, 100);
+        final List<View> bubbles = new ArrayList<>();
+        bubbles.add(displayBubble);
+        final BubbleMovementManager displayManager = new BubbleMovementManager(RuntimeEnvironment.application,
+                bubbles, null, BubbleMovementManager.VIEW_MOVEMENT_FACTORY, MovementConfig.DEFAULT, frameSource);
+        assertEquals(new Rect(0, 0, 1080, 1920), displayManager.getBounds());
+        assertEquals(3 * 360 * 6, displayManager.getMinimumFlingVelocity());
+        displayManager.moveY(1500, 0);
+
+        RuntimeEnvironment.setQualifiers("w640dp-h360dp-land");
+        DisplayMetricsCache.getInstance().onConfigurationChanged(
+                RuntimeEnvironment.application.getResources().getConfiguration());
+
+        assertEquals(new Rect(0, 0, 1920, 1080), displayManager.getBounds());
+        assertEquals(3 * 640 * 6, displayManager.getMinimumFlingVelocity());
+        // The bubble below the new bottom docks back onto the screen.
+        frameSource.runUntilIdle(1000);
+        assertEquals(1080 - 100, displayManager.getMasterY(), 0);
+        // Explicit bounds are left alone.
+        assertEquals(new Rect(0, 0, 1080, 1920), manager.getBounds());
+        displayManager.stop();
+    }
+
+    @Test
+    public void idle_holdsNoGestureResources() {
+        assertEquals(BubbleMovementManager.STATE_IDLE, manager.getMotionState());
+        assertFalse(manager.holdsGestureResources());
+        assertFalse(manager.getXFlingAnimation().isRunning());
+    }
+
+    @Test
+    public void flingEnd_docksAndGoesIdle() {
+        final List<Integer> states = recordStates();
+
+        final MotionEvent down = MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 50, 50, 0);
+        bubble.dispatchTouchEvent(down);
+        down.recycle();
+        assertEquals(BubbleMovementManager.STATE_DRAGGING, manager.getMotionState());
+        assertTrue(manager.holdsGestureResources());
+
+        manager.fling(3000, 500);
+        assertEquals(BubbleMovementManager.STATE_FLINGING, manager.getMotionState());
+        while (manager.getMotionState() == BubbleMovementManager.STATE_FLINGING) {
+            frameSource.doFrame();
+        }
+        // The fling ended against the edge and is now springing onto it.
+        assertEquals(BubbleMovementManager.STATE_SETTLING, manager.getMotionState());
+        assertTrue(manager.getXStickyAnimation().isRunning());
+        frameSource.runUntilIdle(1000);
+
+        assertEquals(1080 - 100, manager.getMasterX(), 0);
+        assertEquals(BubbleMovementManager.STATE_IDLE, manager.getMotionState());
+        assertFalse(manager.holdsGestureResources());
+        assertEquals(Arrays.asList(
+                BubbleMovementManager.STATE_DRAGGING,
+                BubbleMovementManager.STATE_FLINGING,
+                BubbleMovementManager.STATE_SETTLING,
+                BubbleMovementManager.STATE_IDLE), states);
+    }
+
+    @Test
+    public void release_settlesThenGoesIdle() {
+        final List<Integer> states = recordStates();
+        manager.moveX(300, 0);
+
+        releaseWithoutFling(bubble);
+        assertEquals(BubbleMovementManager.STATE_SETTLING, manager.getMotionState());
+        frameSource.runUntilIdle(1000);
+
+        assertEquals(0, manager.getMasterX(), 0);
+        assertEquals(Arrays.asList(
+                BubbleMovementManager.STATE_DRAGGING,
+                BubbleMovementManager.STATE_SETTLING,
+                BubbleMovementManager.STATE_IDLE), states);
+        assertFalse(manager.holdsGestureResources());
+    }
+
+    @Test
+    public void touchAfterIdle_reacquiresResources() {
+        releaseWithoutFling(bubble);
+        frameSource.runUntilIdle(1000);
+        assertFalse(manager.holdsGestureResources());
+
+        manager.setTouchPredictionEnabled(true);
+        drag(10);
+
+        assertEquals(BubbleMovementManager.STATE_DRAGGING, manager.getMotionState());
+        assertTrue(manager.holdsGestureResources());
+        assertTrue(manager.getMasterX() > 160);
+    }
+
+    @Test
+    public void idle_keepsAnimationsForNextGesture() {
+        final PhysicsAnimation xFling = manager.getXFlingAnimation();
+        final PhysicsAnimation xSticky = manager.getXStickyAnimation();
+        releaseWithoutFling(bubble);
+        frameSource.runUntilIdle(1000);
+        assertFalse(manager.holdsGestureResources());
+
+        drag(10);
+
+        assertSame(xFling, manager.getXFlingAnimation());
+        assertSame(xSticky, manager.getXStickyAnimation());
+    }
+
+    @Test
+    public void removedListener_isNotNotified() {
+        final List<Integer> states = new ArrayList<>();
+        final BubbleMovementManager.MotionStateListener listener = (oldState, newState) -> states.add(newState);
+        manager.addMotionStateListener(listener);
+        manager.removeMotionStateListener(listener);
+
+        releaseWithoutFling(bubble);
+        frameSource.runUntilIdle(1000);
+
+        assertTrue(states.isEmpty());
+    }
+
+    @Test
+    public void gestureMetrics_reportedOnceIdle() {
+        final List<String> reports = new ArrayList<>();
+        final int[] frames = new int[3];
+        manager.setGestureMetricsListener(snapshot -> {
+            reports.add(snapshot.toString());
+            frames[0] = snapshot.getDragFrames();
+            frames[1] = snapshot.getSettleFrames();
+            frames[2] = Math.round(snapshot.getTouchToFirstMoveMillis());
+        });
+        assertNotNull(manager.getGestureMetrics());
+
+        drag(4);
+        frameSource.doFrame();
+        frameSource.doFrame();
+        final MotionEvent up = MotionEvent.obtain(0, 40, MotionEvent.ACTION_UP, 50 + 16 * 4, 50, 0);
+        bubble.dispatchTouchEvent(up);
+        up.recycle();
+        frameSource.runUntilIdle(1000);
+
+        assertEquals(1, reports.size());
+        assertEquals(2, frames[0]);
+        assertTrue(frames[1] > 0);
+        // The first drag sample, at most 32ms in, was applied on the frame at 16.67 or 33.33ms.
+        assertTrue(String.valueOf(frames[2]), frames[2] >= 0 && frames[2] <= 17);
+
+        manager.setGestureMetricsListener(null);
+        assertNull(manager.getGestureMetrics());
+        releaseWithoutFling(bubble);
+        frameSource.runUntilIdle(1000);
+        assertEquals(1, reports.size());
+    }
+
+    @Test
+    public void tap_expandsAndCollapsesStack() {
+        final List<View> bubbles = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            final View view = new View(RuntimeEnvironment.application);
+            view.layout(0, 0, 100, 100);
+            bubbles.add(view);
+        }
+        final BubbleMovementManager stack = new BubbleMovementManager(RuntimeEnvironment.application, bubbles,
+                new Rect(0, 0, 1080, 1920), BubbleMovementManager.VIEW_MOVEMENT_FACTORY, MovementConfig.DEFAULT,
+                frameSource);
+        stack.start();
+        assertFalse(stack.isExpanded());
+
+        releaseWithoutFling(bubbles.get(0));
+        assertTrue(stack.isExpanded());
+        frameSource.runUntilIdle(1000);
+        assertEquals(BubbleMovementManager.STATE_IDLE, stack.getMotionState());
+        // Spread rightwards from the master bubble docked on the left edge, without overlapping.
+        float lastX = 0;
+        for (int i = 1; i < bubbles.size(); i++) {
+            final float x = bubbles.get(i).getTranslationX();
+            assertTrue(x + " after " + lastX, x >= lastX + 100);
+            assertEquals(0, bubbles.get(i).getTranslationY(), 0);
+            lastX = x;
+        }
+
+        releaseWithoutFling(bubbles.get(0));
+        assertFalse(stack.isExpanded());
+        frameSource.runUntilIdle(1000);
+        for (View bubble : bubbles) {
+            assertEquals(0, bubble.getTranslationX(), 0);
+        }
+        stack.stop();
+    }
+
+    @Test
+    public void offMainThreadEstimation_dragsOncePerFrameAndFlings() {
+        manager.setOffMainThreadEstimationEnabled(true);
+        assertTrue(manager.isOffMainThreadEstimationEnabled());
+
+        drag(10);
+        // The bubble is placed from the worker's estimate on the next frame.
+        assertEquals(0, manager.getMasterX(), 0);
+        frameSource.doFrame();
+        assertEquals(160, manager.getMasterX(), 0);
+
+        drag(12, 10);
+        final MotionEvent up = MotionEvent.obtain(0, 8 * 13, MotionEvent.ACTION_UP, 50 + 16 * 13, 50, 0);
+        bubble.dispatchTouchEvent(up);
+        up.recycle();
+        assertEquals(BubbleMovementManager.STATE_FLINGING, manager.getMotionState());
+        frameSource.runUntilIdle(1000);
+
+        assertEquals(1080 - 100, manager.getMasterX(), 0);
+    }
+
+    @Test
+    public void offMainThreadEstimation_keepsWorkerAcrossGestures() {
+        manager.setOffMainThreadEstimationEnabled(true);
+        final GestureEstimator estimator = manager.getEstimator();
+        assertNotNull(estimator);
+
+        releaseWithoutFling(bubble);
+        frameSource.runUntilIdle(1000);
+        assertEquals(BubbleMovementManager.STATE_IDLE, manager.getMotionState());
+        drag(10);
+
+        assertSame(estimator, manager.getEstimator());
+        manager.setOffMainThreadEstimationEnabled(false);
+        // Stopped once the gesture ends.
+        assertSame(estimator, manager.getEstimator());
+        releaseWithoutFling(bubble);
+        assertNull(manager.getEstimator());
+    }
+
+    @Test
+    public void drag_withoutVelocityConsumers_skipsVelocityComputation() {
+        drag(10);
+
+        assertEquals(0, manager.getVelocityComputations());
+        assertEquals(10, manager.getAvoidedVelocityComputations());
+    }
+
+    @Test
+    public void getDragVelocity_computesOncePerNewSamples() {
+        final float[] velocity = new float[2];
+        assertFalse(manager.getDragVelocity(velocity));
+
+        drag(10);
+        assertTrue(manager.getDragVelocity(velocity));
+        assertTrue(manager.getDragVelocity(velocity));
+
+        // 16px every 8ms.
+        assertEquals(2000, velocity[0], 100);
+        assertEquals(0, velocity[1], 1);
+        assertEquals(1, manager.getVelocityComputations());
+        assertEquals(9, manager.getAvoidedVelocityComputations());
+
+        drag(12, 10);
+        assertTrue(manager.getDragVelocity(velocity));
+        assertEquals(2, manager.getVelocityComputations());
+        assertEquals(10, manager.getAvoidedVelocityComputations());
+    }
+
+    @Test
+    public void dragOntoDismissZone_computesVelocityOnlyOnEntering() {
+        manager.setDismissZone(new DismissZone(160, 0, 40));
+
+        drag(10);
+
+        assertEquals(1, manager.getVelocityComputations());
+        assertEquals(9, manager.getAvoidedVelocityComputations());
+    }
+
+    @Test
+    public void projectedDocking_settlesOnSameEdgeInFewerFrames() {
+        final BubbleMovementManager projected = createProjectedManager(createBubble());
+        // Start x, start y, x velocity and y velocity of each fling.
+        final float[][] flings = {
+                {300, 800, 3000, -1500},
+                {300, 800, 6000, 0},
+                {700, 1200, -4000, 800},
+                {100, 300, 1500, 2500},
+                {500, 900, 800, -300},
+                {900, 400, -7000, -2000},
+        };
+        int totalChainedFrames = 0;
+        int totalProjectedFrames = 0;
+        for (float[] fling : flings) {
+            manager.moveX(fling[0], 0);
+            manager.moveY(fling[1], 0);
+            manager.fling(fling[2], fling[3]);
+            final int chainedFrames = frameSource.runUntilIdle(1000);
+
+            projected.moveX(fling[0], 0);
+            projected.moveY(fling[1], 0);
+            projected.fling(fling[2], fling[3]);
+            assertFalse(projected.getXFlingAnimation().isRunning());
+            final int projectedFrames = frameSource.runUntilIdle(1000);
+
+            final String message = Arrays.toString(fling) + ": " + projectedFrames + " vs " + chainedFrames;
+            assertEquals(message, manager.getMasterX(), projected.getMasterX(), 0);
+            assertEquals(BubbleMovementManager.STATE_IDLE, projected.getMotionState());
+            assertTrue(message, projectedFrames < chainedFrames);
+            totalChainedFrames += chainedFrames;
+            totalProjectedFrames += projectedFrames;
+        }
+        projected.stop();
+
+        // Measured at 232 against 474 frames.
+        assertTrue(totalProjectedFrames + " vs " + totalChainedFrames, 3 * totalProjectedFrames < 2 * totalChainedFrames);
+    }
+
+    @Test
+    public void projectedDocking_keepsConfiguredDampingForDismissZone() {
+        final View projectedBubble = createBubble();
+        final BubbleMovementManager projected = createProjectedManager(projectedBubble);
+        projected.fling(3000, -1500);
+        frameSource.runUntilIdle(1000);
+        assertEquals(1f, projected.getStickyDampingRatio(), 0);
+
+        projected.setDismissZone(new DismissZone(projected.getMasterX() + 160, projected.getMasterY(), 40));
+        drag(projectedBubble, 10);
+
+        assertTrue(projected.getXStickyAnimation().isRunning());
+        assertEquals(MovementConfig.DEFAULT.getSpringDampingRatio(), projected.getStickyDampingRatio(), 0);
+        projected.stop();
+    }
+
+    /**
+     * Drags the master bubble right at a constant 16px every 8ms without lifting the finger.
+     */
+    private void drag(int moves) {
+        drag(bubble, moves);
+    }
+
+    private static void drag(View bubble, int moves) {
+        final MotionEvent down = MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 50, 50, 0);
+        bubble.dispatchTouchEvent(down);
+        down.recycle();
+        drag(bubble, moves, 0);
+    }
+
+    /**
+     * Continues a drag started by {@link #drag(int)} from the given number of moves.
+     */
+    private void drag(int moves, int from) {
+        drag(bubble, moves, from);
+    }
+
+    private static void drag(View bubble, int moves, int from) {
+        for (int i = from + 1; i <= moves; i++) {
+            final MotionEvent move = MotionEvent.obtain(0, 8 * i, MotionEvent.ACTION_MOVE, 50 + 16 * i, 50, 0);
+            bubble.dispatchTouchEvent(move);
+            move.recycle();
+        }
+    }
+
+    private static void releaseWithoutFling(View bubble) {
+        final MotionEvent down = MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 50, 50, 0);
+        bubble.dispatchTouchEvent(down);
+        down.recycle();
+        final MotionEvent up = MotionEvent.obtain(0, 40, MotionEvent.ACTION_UP, 50, 50, 0);
+        bubble.dispatchTouchEvent(up);
+        up.recycle();
+    }
+
+    private List<Integer> recordStates() {
+        final List<Integer> states = new ArrayList<>();
+        manager.addMotionStateListener((oldState, newState) -> {
+            assertNotEquals(oldState, newState);
+            states.add(newState);
+        });
+        return states;
+    }
+
+    private static View createBubble() {
+        final View bubble = new View(RuntimeEnvironment.application);
+        bubble.layout(0, 0, 100, 100);
+        return bubble;
+    }
+
+    private BubbleMovementManager createProjectedManager(View bubble) {
+        final List<View> bubbles = new ArrayList<>();
+        bubbles.add(bubble);
+        final MovementConfig config = MovementConfig.DEFAULT.buildUpon().setProjectedDocking(true).build();
+        final BubbleMovementManager projected = new BubbleMovementManager(RuntimeEnvironment.application, bubbles,
+                new Rect(0, 0, 1080, 1920), BubbleMovementManager.VIEW_MOVEMENT_FACTORY, config, frameSource);
+        projected.start();
+        return projected;
+    }
+}
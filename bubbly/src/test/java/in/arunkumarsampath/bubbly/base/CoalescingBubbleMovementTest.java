@@ -0,0 +1,99 @@
+package in.arunkumarsampath.bubbly.base;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class CoalescingBubbleMovementTest {
+    private ManualFrameSource frameSource;
+    private RecordingTarget target;
+    private CoalescingBubbleMovement movement;
+
+    @Before
+    public void setUp() {
+        frameSource = new ManualFrameSource();
+        target = new RecordingTarget();
+        movement = new CoalescingBubbleMovement(frameSource, target);
+    }
+
+    @Test
+    public void updatesWithinAFrame_areAppliedOnceWithLatestValues() {
+        movement.moveX(10, 0);
+        movement.moveY(20, 0);
+        movement.moveX(30, 0);
+        movement.moveY(40, 0);
+
+        assertEquals(0, target.applied);
+        frameSource.doFrame();
+
+        assertEquals(1, target.applied);
+        assertEquals(30, target.x, 0);
+        assertEquals(40, target.y, 0);
+        assertEquals(4, movement.getRequestedUpdates());
+        assertEquals(1, movement.getAppliedFrames());
+    }
+
+    @Test
+    public void singleAxisUpdate_keepsOtherAxis() {
+        movement.setPosition(5, 6);
+        movement.moveX(10, 0);
+        frameSource.doFrame();
+
+        assertEquals(10, target.x, 0);
+        assertEquals(6, target.y, 0);
+    }
+
+    @Test
+    public void idleFrames_applyNothing() {
+        movement.moveX(10, 0);
+        frameSource.doFrame();
+        frameSource.doFrame();
+
+        assertEquals(1, target.applied);
+        assertFalse(frameSource.hasPendingCallbacks());
+    }
+
+    @Test
+    public void flush_appliesPendingUpdateImmediately() {
+        movement.moveY(15, 0);
+        movement.flush();
+
+        assertEquals(1, target.applied);
+        assertEquals(15, target.y, 0);
+        assertFalse(frameSource.hasPendingCallbacks());
+    }
+
+    @Test
+    public void cancel_dropsPendingUpdate() {
+        movement.moveY(15, 0);
+        movement.cancel();
+        frameSource.doFrame();
+
+        assertEquals(0, target.applied);
+    }
+
+    @Test
+    public void resetCounters_clearsCounts() {
+        movement.moveX(1, 0);
+        frameSource.doFrame();
+        movement.resetCounters();
+
+        assertEquals(0, movement.getRequestedUpdates());
+        assertEquals(0, movement.getAppliedFrames());
+    }
+
+    private static class RecordingTarget implements CoalescingBubbleMovement.Target {
+        float x;
+        float y;
+        int applied;
+
+        @Override
+        public void applyPosition(float x, float y) {
+            this.x = x;
+            this.y = y;
+            applied++;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package in.arunkumarsampath.bubbly.base;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import in.arunkumarsampath.bubbly.AllocationCounter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class DismissZoneTest {
+    private DismissZone zone;
+    private final RecordingListener listener = new RecordingListener();
+
+    @Before
+    public void setUp() {
+        zone = new DismissZone(490, 1600, 100);
+        zone.setListener(listener);
+    }
+
+    @Test
+    public void dragIntoZoneAndRelease_dismisses() {
+        drag(490, 900, 490, 1580, 20);
+
+        assertTrue(zone.isInside());
+        assertEquals("enter", listener.events.toString());
+
+        assertTrue(zone.release());
+        assertFalse(zone.isInside());
+        assertEquals("enter dismiss", listener.events.toString());
+    }
+
+    @Test
+    public void dragPastZone_entersAndExits() {
+        drag(100, 1600, 900, 1600, 40);
+
+        assertFalse(zone.isInside());
+        assertEquals("enter exit", listener.events.toString());
+        assertFalse(zone.release());
+        assertEquals("enter exit", listener.events.toString());
+    }
+
+    @Test
+    public void jitterAtBorder_doesNotFlicker() {
+        // Hovering just across the enter radius stays within the larger exit radius.
+        for (int i = 0; i < 50; i++) {
+            zone.update(490 + (i % 2 == 0 ? 98 : 110), 1600);
+        }
+
+        assertTrue(zone.isInside());
+        assertEquals("enter", listener.events.toString());
+    }
+
+    @Test
+    public void exitRadius_isLargerThanEnterRadius() {
+        zone.update(490 + 100, 1600);
+        assertTrue(zone.isInside());
+
+        zone.update(490 + 124, 1600);
+        assertTrue(zone.isInside());
+
+        zone.update(490 + 126, 1600);
+        assertFalse(zone.isInside());
+    }
+
+    @Test
+    public void cancelInside_exitsWithoutDismissing() {
+        zone.update(490, 1600);
+        zone.cancel();
+
+        assertFalse(zone.isInside());
+        assertEquals("enter exit", listener.events.toString());
+    }
+
+    @Test
+    public void setPosition_movesZone() {
+        zone.setPosition(100, 100);
+
+        assertFalse(zone.update(490, 1600));
+        assertTrue(zone.update(120, 90));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveRadius_throws() {
+        new DismissZone(0, 0, 0);
+    }
+
+    @Test
+    public void update_doesNotAllocate() {
+        assumeTrue(AllocationCounter.isSupported());
+        zone.setListener(null);
+
+        final long allocated = AllocationCounter.measure(() -> drag(100, 1600, 900, 1600, 1000));
+
+        assertEquals(0, allocated);
+    }
+
+    /**
+     * Moves from the start to the end position in equal steps, like a straight drag.
+     */
+    private void drag(float fromX, float fromY, float toX, float toY, int steps) {
+        for (int i = 0; i <= steps; i++) {
+            final float fraction = (float) i / steps;
+            zone.update(fromX + (toX - fromX) * fraction, fromY + (toY - fromY) * fraction);
+        }
+    }
+
+    private static final class RecordingListener implements DismissZone.Listener {
+        final StringBuilder events = new StringBuilder();
+
+        @Override
+        public void onEnterDismissZone() {
+            record("enter");
+        }
+
+        @Override
+        public void onExitDismissZone() {
+            record("exit");
+        }
+
+        @Override
+        public void onDismiss() {
+            record("dismiss");
+        }
+
+        private void record(String event) {
+            if (events.length() > 0) {
+                events.append(' ');
+            }
+            events.append(event);
+        }
+    }
+}
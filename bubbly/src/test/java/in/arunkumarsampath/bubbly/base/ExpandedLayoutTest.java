@@ -0,0 +1,100 @@
+package in.arunkumarsampath.bubbly.base;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ExpandedLayoutTest {
+    private static final float SIZE = 100;
+    /**
+     * Positions keeping a bubble within 1080x1920 bounds.
+     */
+    private static final float MAX_X = 1080 - SIZE;
+    private static final float MAX_Y = 1920 - SIZE;
+    private static final float SLOT = 108;
+
+    @Test
+    public void fromLeftEdge_runsRightwards() {
+        final float[] xs = new float[3];
+        final float[] ys = new float[3];
+
+        assertEquals(1, ExpandedLayout.layoutRows(0, 0, MAX_X, MAX_Y, 0, 300, SLOT, 3, xs, ys));
+
+        assertEquals(108, xs[0], 0);
+        assertEquals(216, xs[1], 0);
+        assertEquals(324, xs[2], 0);
+        assertEquals(300, ys[2], 0);
+    }
+
+    @Test
+    public void fromBottomRight_runsLeftwardsAndWrapsUpwards() {
+        final float[] xs = new float[12];
+        final float[] ys = new float[12];
+
+        final int rows = ExpandedLayout.layoutRows(0, 0, MAX_X, MAX_Y, MAX_X, MAX_Y, SLOT, 12, xs, ys);
+
+        assertEquals(2, rows);
+        assertEquals(MAX_X - SLOT, xs[0], 0);
+        // The master bubble and 9 more fill the first row, the second starts above the master.
+        assertEquals(MAX_X - 9 * SLOT, xs[8], 0);
+        assertEquals(MAX_X, xs[9], 0);
+        assertEquals(MAX_Y - SLOT, ys[9], 0);
+        assertNoOverlap(MAX_X, MAX_Y, xs, ys, SIZE);
+        assertWithinRange(xs, ys);
+    }
+
+    @Test
+    public void manyBubbles_doNotOverlapAndStayInRange() {
+        final int count = 40;
+        final float[] xs = new float[count];
+        final float[] ys = new float[count];
+        final float[][] masters = {{0, 0}, {MAX_X, 0}, {0, MAX_Y}, {MAX_X, MAX_Y}, {490, 900}};
+        for (float[] master : masters) {
+            ExpandedLayout.layoutRows(0, 0, MAX_X, MAX_Y, master[0], master[1], SLOT, count, xs, ys);
+
+            assertNoOverlap(master[0], master[1], xs, ys, SIZE);
+            assertWithinRange(xs, ys);
+        }
+    }
+
+    @Test
+    public void stackTallerThanRange_shrinksSlotsToStayInRange() {
+        // 10 columns by 17 rows of full slots hold 169 bubbles besides the master.
+        final int count = 300;
+        final float[] xs = new float[count];
+        final float[] ys = new float[count];
+        final float[][] masters = {{0, 0}, {MAX_X, MAX_Y}, {490, 900}};
+        for (float[] master : masters) {
+            ExpandedLayout.layoutRows(0, 0, MAX_X, MAX_Y, master[0], master[1], SLOT, count, xs, ys);
+
+            assertWithinRange(xs, ys);
+            // Still a grid, just a denser one.
+            final float slot = Math.abs(xs[0] - master[0]);
+            assertTrue(String.valueOf(slot), slot >= 30 && slot < SLOT);
+            assertNoOverlap(master[0], master[1], xs, ys, slot - 0.01f);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void layout_rejectsEmptySlot() {
+        ExpandedLayout.layoutRows(0, 0, MAX_X, MAX_Y, 0, 0, 0, 1, new float[1], new float[1]);
+    }
+
+    private static void assertWithinRange(float[] xs, float[] ys) {
+        for (int i = 0; i < xs.length; i++) {
+            assertTrue(i + ": " + xs[i], xs[i] >= -0.01f && xs[i] <= MAX_X + 0.01f);
+            assertTrue(i + ": " + ys[i], ys[i] >= -0.01f && ys[i] <= MAX_Y + 0.01f);
+        }
+    }
+
+    private static void assertNoOverlap(float masterX, float masterY, float[] xs, float[] ys, float size) {
+        for (int i = -1; i < xs.length; i++) {
+            final float x = i < 0 ? masterX : xs[i];
+            final float y = i < 0 ? masterY : ys[i];
+            for (int j = i + 1; j < xs.length; j++) {
+                assertTrue(i + " overlaps " + j, Math.abs(x - xs[j]) >= size || Math.abs(y - ys[j]) >= size);
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package in.arunkumarsampath.bubbly.base;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import in.arunkumarsampath.bubbly.AllocationCounter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class FrameCallbackQueueTest {
+    private final FrameCallbackQueue queue = new FrameCallbackQueue();
+    private final List<String> ran = new ArrayList<>();
+
+    @Test
+    public void dispatch_runsCallbacksInPostOrder() {
+        queue.post(record("a"));
+        queue.post(record("b"));
+
+        queue.dispatch(0);
+
+        assertEquals(Arrays.asList("a", "b"), ran);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void post_twice_runsOnce() {
+        final FrameSource.Callback a = record("a");
+        queue.post(a);
+        queue.post(a);
+
+        queue.dispatch(0);
+
+        assertEquals(Arrays.asList("a"), ran);
+    }
+
+    @Test
+    public void postedWhileDispatching_runsInSameFrame() {
+        final FrameSource.Callback b = record("b");
+        queue.post(frameTimeNanos -> {
+            ran.add("a");
+            queue.post(b);
+        });
+
+        queue.dispatch(0);
+
+        assertEquals(Arrays.asList("a", "b"), ran);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void repostedWhileDispatching_waitsForNextFrame() {
+        final FrameSource.Callback[] self = new FrameSource.Callback[1];
+        self[0] = frameTimeNanos -> {
+            ran.add("a");
+            queue.post(self[0]);
+        };
+        queue.post(self[0]);
+
+        queue.dispatch(0);
+        assertEquals(Arrays.asList("a"), ran);
+        assertFalse(queue.isEmpty());
+
+        queue.dispatch(1);
+        assertEquals(Arrays.asList("a", "a"), ran);
+    }
+
+    @Test
+    public void pendingPostedWhileDispatching_runsOnce() {
+        final FrameSource.Callback b = record("b");
+        queue.post(frameTimeNanos -> {
+            ran.add("a");
+            queue.post(b);
+        });
+        queue.post(b);
+
+        queue.dispatch(0);
+
+        assertEquals(Arrays.asList("a", "b"), ran);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void removedWhileDispatching_doesNotRun() {
+        final FrameSource.Callback b = record("b");
+        queue.post(frameTimeNanos -> {
+            ran.add("a");
+            queue.remove(b);
+        });
+        queue.post(b);
+
+        queue.dispatch(0);
+
+        assertEquals(Arrays.asList("a"), ran);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void removedThenPostedWhileDispatching_runsOnce() {
+        final FrameSource.Callback b = record("b");
+        queue.post(frameTimeNanos -> {
+            ran.add("a");
+            queue.remove(b);
+            queue.post(b);
+        });
+        queue.post(b);
+
+        queue.dispatch(0);
+
+        assertEquals(Arrays.asList("a", "b"), ran);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void removeAll_leavesQueueEmpty() {
+        final FrameSource.Callback a = record("a");
+        queue.post(a);
+        queue.remove(a);
+        assertTrue(queue.isEmpty());
+
+        queue.dispatch(0);
+
+        assertTrue(ran.isEmpty());
+    }
+
+    @Test
+    public void repostingDuringDispatch_isLinearInCallbacks() {
+        // Each callback posts the next one and re-posts itself, like followers of a chain. Comparing
+        // callbacks means a queue is searched, which makes the frame quadratic.
+        final int count = 2000;
+        final int[] comparisons = new int[1];
+        final int[] runs = new int[1];
+        final FrameSource.Callback[] callbacks = new FrameSource.Callback[count];
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+            callbacks[i] = new FrameSource.Callback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    runs[0]++;
+                    if (index + 1 < count) {
+                        queue.post(callbacks[index + 1]);
+                    }
+                    queue.post(this);
+                }
+
+                @Override
+                public boolean equals(Object o) {
+                    comparisons[0]++;
+                    return super.equals(o);
+                }
+
+                @Override
+                public int hashCode() {
+                    comparisons[0]++;
+                    return super.hashCode();
+                }
+            };
+        }
+        queue.post(callbacks[0]);
+
+        queue.dispatch(0);
+        assertEquals(count, runs[0]);
+        queue.dispatch(1);
+        assertEquals(2 * count, runs[0]);
+
+        assertEquals(0, comparisons[0]);
+    }
+
+    @Test
+    public void dispatch_doesNotAllocate() {
+        assumeTrue(AllocationCounter.isSupported());
+        final FrameSource.Callback[] callbacks = new FrameSource.Callback[64];
+        for (int i = 0; i < callbacks.length; i++) {
+            callbacks[i] = frameTimeNanos -> {
+            };
+        }
+
+        final long allocated = AllocationCounter.measure(() -> {
+            for (FrameSource.Callback callback : callbacks) {
+                queue.post(callback);
+            }
+            queue.dispatch(0);
+        });
+
+        assertEquals(0, allocated);
+    }
+
+    private FrameSource.Callback record(String name) {
+        return frameTimeNanos -> ran.add(name);
+    }
+}
@@ -0,0 +1,100 @@
+package in.arunkumarsampath.bubbly.base;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import in.arunkumarsampath.bubbly.AllocationCounter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GestureEstimateTest {
+
+    @Test
+    public void read_returnsPublishedValues() {
+        final GestureEstimate estimate = new GestureEstimate();
+        final float[] values = new float[GestureEstimate.SIZE];
+        assertEquals(0, estimate.read(values));
+
+        estimate.publish(3, 100, -200, 10, Float.NaN);
+
+        assertEquals(3, estimate.read(values));
+        assertEquals(100, values[GestureEstimate.X_VELOCITY], 0);
+        assertEquals(-200, values[GestureEstimate.Y_VELOCITY], 0);
+        assertEquals(10, values[GestureEstimate.PREDICTED_X], 0);
+        assertTrue(Float.isNaN(values[GestureEstimate.PREDICTED_Y]));
+    }
+
+    @Test
+    public void read_doesNotAllocate() {
+        if (!AllocationCounter.isSupported()) {
+            return;
+        }
+        final GestureEstimate estimate = new GestureEstimate();
+        final float[] values = new float[GestureEstimate.SIZE];
+        final long allocated = AllocationCounter.measure(() -> {
+            for (int i = 0; i < 1000; i++) {
+                estimate.publish(i, i, i, i, i);
+                estimate.read(values);
+            }
+        });
+        assertEquals(0, allocated);
+    }
+
+    @Test
+    public void concurrentReads_neverSeeTornValues() throws InterruptedException {
+        final GestureEstimate estimate = new GestureEstimate();
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final int readerCount = 3;
+        final long[] reads = new long[readerCount];
+
+        final Thread[] readers = new Thread[readerCount];
+        for (int r = 0; r < readerCount; r++) {
+            final int reader = r;
+            readers[r] = new Thread(() -> {
+                final float[] values = new float[GestureEstimate.SIZE];
+                long last = 0;
+                while (!done.get()) {
+                    final long samples = estimate.read(values);
+                    final float expected = samples % 100_000;
+                    // All values of one publish are derived from its sample count.
+                    if (values[GestureEstimate.X_VELOCITY] != expected
+                            || values[GestureEstimate.Y_VELOCITY] != -expected
+                            || values[GestureEstimate.PREDICTED_X] != 2 * expected
+                            || values[GestureEstimate.PREDICTED_Y] != -2 * expected) {
+                        failure.compareAndSet(null, "Torn read of " + samples + ": " + values[0] + ", "
+                                + values[1] + ", " + values[2] + ", " + values[3]);
+                        return;
+                    }
+                    if (samples < last) {
+                        failure.compareAndSet(null, "Went back from " + last + " to " + samples);
+                        return;
+                    }
+                    last = samples;
+                    reads[reader]++;
+                }
+            });
+            readers[r].start();
+        }
+
+        for (long samples = 1; samples <= 3_000_000; samples++) {
+            final float value = samples % 100_000;
+            estimate.publish(samples, value, -value, 2 * value, -2 * value);
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join(60_000);
+        }
+
+        assertNull(failure.get(), failure.get());
+        final float[] values = new float[GestureEstimate.SIZE];
+        assertEquals(3_000_000, estimate.read(values));
+        for (long count : reads) {
+            assertTrue(count > 0);
+        }
+    }
+}
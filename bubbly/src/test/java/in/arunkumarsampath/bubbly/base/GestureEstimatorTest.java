@@ -0,0 +1,116 @@
+package in.arunkumarsampath.bubbly.base;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import in.arunkumarsampath.bubbly.AllocationCounter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GestureEstimatorTest {
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private GestureEstimator estimator;
+    private final float[] values = new float[GestureEstimate.SIZE];
+
+    @Before
+    public void setUp() {
+        estimator = new GestureEstimator();
+        estimator.start();
+    }
+
+    @After
+    public void tearDown() {
+        estimator.stop();
+    }
+
+    @Test
+    public void worker_estimatesVelocityAndPrediction() {
+        estimator.setPredictionMillis(16);
+        // 2 px/ms right and 1 px/ms up, sampled every 8ms.
+        estimator.offer(TouchSampleRing.KIND_DOWN, 0, 100, 500);
+        for (int i = 1; i <= 10; i++) {
+            estimator.offer(TouchSampleRing.KIND_MOVE, 8 * i, 100 + 16 * i, 500 - 8 * i);
+        }
+        estimator.wakeWorker();
+
+        assertTrue(estimator.awaitEstimate(TIMEOUT_NANOS));
+        assertEquals(11, estimator.getEstimate().read(values));
+        assertEquals(2000, values[GestureEstimate.X_VELOCITY], 1);
+        assertEquals(-1000, values[GestureEstimate.Y_VELOCITY], 1);
+        assertEquals(100 + 160 + 32, values[GestureEstimate.PREDICTED_X], 0.5);
+        assertEquals(500 - 80 - 16, values[GestureEstimate.PREDICTED_Y], 0.5);
+    }
+
+    @Test
+    public void down_startsNewGesture() {
+        estimator.offer(TouchSampleRing.KIND_DOWN, 0, 0, 0);
+        estimator.offer(TouchSampleRing.KIND_MOVE, 10, 100, 0);
+        estimator.offer(TouchSampleRing.KIND_UP, 20, 200, 0);
+        estimator.offer(TouchSampleRing.KIND_DOWN, 30, 500, 500);
+        estimator.wakeWorker();
+
+        assertTrue(estimator.awaitEstimate(TIMEOUT_NANOS));
+        estimator.getEstimate().read(values);
+        // A single sample of the new gesture, nothing to fit yet.
+        assertEquals(0, values[GestureEstimate.X_VELOCITY], 0);
+        assertTrue(Float.isNaN(values[GestureEstimate.PREDICTED_X]));
+    }
+
+    @Test
+    public void offer_doesNotAllocate() {
+        if (!AllocationCounter.isSupported()) {
+            return;
+        }
+        final long[] time = new long[1];
+        final long allocated = AllocationCounter.measure(() -> {
+            for (int i = 0; i < 100; i++) {
+                time[0] += 8;
+                estimator.offer(TouchSampleRing.KIND_MOVE, time[0], time[0], 0);
+                estimator.wakeWorker();
+            }
+            estimator.awaitEstimate(TIMEOUT_NANOS);
+        });
+        assertEquals(0, allocated);
+    }
+
+    @Test
+    public void gestures_underStress_endWithTheirOwnVelocity() {
+        // Many short gestures back to back, each at its own constant velocity, while the UI thread
+        // keeps reading the estimate. Each must end with the velocity of its own samples only.
+        long time = 0;
+        for (int gesture = 1; gesture <= 2000; gesture++) {
+            final float speed = gesture % 7 + 1;
+            estimator.offer(TouchSampleRing.KIND_DOWN, time, 0, 0);
+            for (int i = 1; i <= 12; i++) {
+                estimator.offer(TouchSampleRing.KIND_MOVE, time + 4 * i, speed * 4 * i, -speed * 4 * i);
+                estimator.wakeWorker();
+                estimator.getEstimate().read(values);
+            }
+            time += 4 * 12 + 100;
+
+            assertTrue(estimator.awaitEstimate(TIMEOUT_NANOS));
+            final long samples = estimator.getEstimate().read(values);
+            assertEquals(estimator.getOfferedSamples(), samples);
+            assertEquals("Gesture " + gesture, speed * 1000, values[GestureEstimate.X_VELOCITY], speed);
+            assertEquals("Gesture " + gesture, -speed * 1000, values[GestureEstimate.Y_VELOCITY], speed);
+        }
+        assertEquals(0, estimator.getDroppedSamples());
+    }
+
+    @Test
+    public void stop_endsWorker() {
+        estimator.stop();
+        estimator.offer(TouchSampleRing.KIND_DOWN, 0, 0, 0);
+        estimator.wakeWorker();
+
+        assertTrue(!estimator.awaitEstimate(TimeUnit.MILLISECONDS.toNanos(20)));
+        // Can be started again.
+        estimator.start();
+        assertTrue(estimator.awaitEstimate(TIMEOUT_NANOS));
+    }
+}
@@ -0,0 +1,162 @@
+package in.arunkumarsampath.bubbly.base;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import in.arunkumarsampath.bubbly.AllocationCounter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class GestureMetricsTest {
+    private ManualFrameSource frameSource;
+    private GestureMetrics metrics;
+    private GestureMetrics.Snapshot reported;
+    private int reports;
+
+    @Before
+    public void setUp() {
+        frameSource = new ManualFrameSource();
+        metrics = new GestureMetrics(frameSource, ManualFrameSource.FRAME_INTERVAL_NANOS);
+        metrics.setListener(snapshot -> {
+            reported = snapshot;
+            reports++;
+        });
+    }
+
+    @Test
+    public void gesture_countsFramesPerState() {
+        metrics.onGestureStart();
+        runFrames(5);
+        metrics.onMotionStateChanged(BubbleMovementManager.STATE_FLINGING);
+        runFrames(20);
+        metrics.onMotionStateChanged(BubbleMovementManager.STATE_SETTLING);
+        runFrames(30);
+        assertNull(reported);
+        metrics.onMotionStateChanged(BubbleMovementManager.STATE_IDLE);
+
+        assertEquals(1, reports);
+        assertEquals(5, reported.getDragFrames());
+        assertEquals(20, reported.getFlingFrames());
+        assertEquals(30, reported.getSettleFrames());
+        assertEquals(0, reported.getJankyFrames());
+        assertEquals(0, reported.getDroppedFrames());
+        // From the first fling frame to the last settle frame.
+        assertEquals(49 * ManualFrameSource.FRAME_INTERVAL_NANOS / 1e6, reported.getSettleDurationMillis(), 0.01);
+        assertEquals(-1, reported.getTouchToFirstMoveMillis(), 0);
+        assertEquals(-1, reported.getAllocationCount());
+        // 54 intervals between 55 frames, all of them 16.67ms.
+        assertEquals(54, reported.getFrameIntervalCount(16));
+        assertFalse(frameSource.hasPendingCallbacks());
+    }
+
+    @Test
+    public void stalledFrames_areJanky() {
+        metrics.onGestureStart();
+        runFrames(3);
+        frameSource.skipFrames(1);
+        runFrames(1);
+        frameSource.skipFrames(3);
+        runFrames(2);
+        metrics.onMotionStateChanged(BubbleMovementManager.STATE_IDLE);
+
+        assertEquals(2, reported.getJankyFrames());
+        assertEquals(4, reported.getDroppedFrames());
+        assertEquals(1, reported.getFrameIntervalCount(33));
+        assertEquals(1, reported.getFrameIntervalCount(66));
+        final int[] histogram = new int[GestureMetrics.HISTOGRAM_BUCKET_COUNT];
+        reported.getFrameIntervalHistogram(histogram);
+        assertEquals(3, histogram[16]);
+    }
+
+    @Test
+    public void longStall_countsIntoLastBucket() {
+        metrics.onGestureStart();
+        runFrames(1);
+        frameSource.skipFrames(60);
+        runFrames(1);
+        metrics.onMotionStateChanged(BubbleMovementManager.STATE_IDLE);
+
+        assertEquals(1, reported.getFrameIntervalCount(GestureMetrics.HISTOGRAM_BUCKET_COUNT - 1));
+        assertEquals(60, reported.getDroppedFrames());
+    }
+
+    @Test
+    public void touchToFirstMove_measuresUntilNextFrame() {
+        metrics.onGestureStart();
+        runFrames(2);
+        // The frame clock is at 33.33ms, the move lands on the frame at 50ms.
+        metrics.onMove(40);
+        metrics.onMove(45);
+        runFrames(1);
+        metrics.onMotionStateChanged(BubbleMovementManager.STATE_IDLE);
+
+        assertEquals(10, reported.getTouchToFirstMoveMillis(), 0.01);
+    }
+
+    @Test
+    public void nextGesture_reusesSnapshot() {
+        metrics.onGestureStart();
+        runFrames(10);
+        metrics.onMotionStateChanged(BubbleMovementManager.STATE_IDLE);
+        final GestureMetrics.Snapshot first = reported;
+
+        metrics.onGestureStart();
+        runFrames(2);
+        metrics.onMotionStateChanged(BubbleMovementManager.STATE_IDLE);
+
+        assertSame(first, reported);
+        assertEquals(2, reported.getDragFrames());
+        assertEquals(1, reported.getFrameIntervalCount(16));
+    }
+
+    @Test
+    public void cancel_dropsGesture() {
+        metrics.onGestureStart();
+        runFrames(3);
+        metrics.cancel();
+        metrics.onMotionStateChanged(BubbleMovementManager.STATE_IDLE);
+
+        assertNull(reported);
+        assertFalse(frameSource.hasPendingCallbacks());
+    }
+
+    @Test
+    public void stateChanges_outsideGesture_areIgnored() {
+        metrics.onMotionStateChanged(BubbleMovementManager.STATE_SETTLING);
+        metrics.onMotionStateChanged(BubbleMovementManager.STATE_IDLE);
+
+        assertNull(reported);
+        assertFalse(metrics.isRecording());
+    }
+
+    @Test
+    public void frames_doNotAllocate() {
+        if (!AllocationCounter.isSupported()) {
+            return;
+        }
+        metrics.onGestureStart();
+        runFrames(10);
+        // Drives the callback directly, the manual frame source itself allocates per frame.
+        final long[] frameTimeNanos = {frameSource.getFrameTimeNanos()};
+        final long allocated = AllocationCounter.measure(() -> {
+            for (int i = 0; i < 100; i++) {
+                frameTimeNanos[0] += (1 + i % 3) * ManualFrameSource.FRAME_INTERVAL_NANOS;
+                metrics.onMove(i);
+                metrics.doFrame(frameTimeNanos[0]);
+            }
+        });
+        assertEquals(0, allocated);
+        metrics.onMotionStateChanged(BubbleMovementManager.STATE_IDLE);
+        assertNotNull(reported);
+    }
+
+    private void runFrames(int frames) {
+        for (int i = 0; i < frames; i++) {
+            frameSource.doFrame();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.view.MotionEvent;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GestureRecordingTest {
+    private static final float QUANTUM = 1f / GestureRecording.COORDINATE_SCALE;
+
+    @Test
+    public void roundTrip_keepsEventsAndSamples() throws IOException {
+        final GestureRecording recording = GestureTrace.load("arc_drag_60hz.csv").toRecording(3);
+
+        final GestureRecording read = roundTrip(recording);
+
+        assertEquals(recording.getEventCount(), read.getEventCount());
+        assertEquals(recording.getDuration(), read.getDuration());
+        for (int event = 0; event < recording.getEventCount(); event++) {
+            assertEquals(recording.getAction(event), read.getAction(event));
+            assertEquals(recording.getEventTime(event), read.getEventTime(event));
+            assertEquals(recording.getSampleCount(event), read.getSampleCount(event));
+            for (int sample = 0; sample < recording.getSampleCount(event); sample++) {
+                assertEquals(recording.getSampleTime(event, sample), read.getSampleTime(event, sample));
+                assertEquals(recording.getSampleX(event, sample), read.getSampleX(event, sample), QUANTUM / 2);
+                assertEquals(recording.getSampleY(event, sample), read.getSampleY(event, sample), QUANTUM / 2);
+            }
+        }
+    }
+
+    @Test
+    public void roundTrip_ofReadTrace_isExact() throws IOException {
+        final GestureRecording read = roundTrip(GestureTrace.load("horizontal_drag_120hz.csv").toRecording(2));
+
+        assertTrue(Arrays.equals(write(read), write(roundTrip(read))));
+    }
+
+    @Test
+    public void trace_isCompact() throws IOException {
+        final GestureTrace trace = GestureTrace.load("horizontal_drag_120hz.csv");
+
+        final int bytes = write(trace.toRecording(2)).length;
+
+        assertTrue(bytes + " bytes for " + trace.size() + " samples", bytes < 8 * trace.size());
+    }
+
+    @Test
+    public void corpusTrace_matchesItsSource() throws IOException {
+        final GestureRecording corpus = GestureReplayer.load("flick_up_120hz.bgt");
+        final GestureRecording source = GestureTrace.load("flick_up_120hz.csv").toRecording(2);
+
+        assertTrue(Arrays.equals(write(source), write(corpus)));
+        assertEquals(MotionEvent.ACTION_DOWN, corpus.getAction(0));
+        assertEquals(MotionEvent.ACTION_UP, corpus.getAction(corpus.getEventCount() - 1));
+    }
+
+    @Test
+    public void recorder_growsAndClears() {
+        final GestureRecorder recorder = new GestureRecorder();
+        for (int i = 0; i < 1000; i++) {
+            recorder.startEvent(MotionEvent.ACTION_MOVE);
+            recorder.addSample(2 * i, i, -i);
+            recorder.addSample(2 * i + 1, i + 0.5f, -i - 0.5f);
+        }
+        final GestureRecording recording = recorder.toRecording();
+        assertEquals(1000, recording.getEventCount());
+        assertEquals(2, recording.getSampleCount(999));
+        assertEquals(999.5f, recording.getSampleX(999, 1), 0);
+        assertEquals(1999, recording.getEventTime(999));
+
+        recorder.clear();
+        assertEquals(0, recorder.getEventCount());
+        assertEquals(0, recorder.toRecording().getEventCount());
+        // The copy is not affected by the recorder being reused.
+        assertEquals(1000, recording.getEventCount());
+    }
+
+    @Test
+    public void read_rejectsOtherData() throws IOException {
+        final byte[] trace = write(GestureTrace.load("flick_up_120hz.csv").toRecording(2));
+
+        final byte[] wrongMagic = trace.clone();
+        wrongMagic[0] = 0;
+        assertReadFails(wrongMagic, IOException.class);
+
+        final byte[] wrongVersion = trace.clone();
+        wrongVersion[4] = 2;
+        assertReadFails(wrongVersion, IOException.class);
+
+        assertReadFails(Arrays.copyOf(trace, trace.length - 1), EOFException.class);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void addSample_withoutEvent_throws() {
+        new GestureRecorder().addSample(0, 0, 0);
+    }
+
+    private static void assertReadFails(byte[] trace, Class<? extends IOException> expected) {
+        try {
+            GestureRecording.read(new ByteArrayInputStream(trace));
+            fail("Read " + trace.length + " bytes");
+        } catch (IOException e) {
+            assertTrue(e.toString(), expected.isInstance(e));
+        }
+    }
+
+    private static GestureRecording roundTrip(GestureRecording recording) throws IOException {
+        return GestureRecording.read(new ByteArrayInputStream(write(recording)));
+    }
+
+    private static byte[] write(GestureRecording recording) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        recording.write(out);
+        return out.toByteArray();
+    }
+}
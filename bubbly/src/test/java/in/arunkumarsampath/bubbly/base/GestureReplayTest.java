@@ -0,0 +1,152 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.content.Context;
+import android.graphics.Rect;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import in.arunkumarsampath.bubbly.util.DisplayMetricsCache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays recorded gestures through the manager's touch listener and fling pipeline.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class GestureReplayTest {
+    private static final int MAX_FRAMES = 1000;
+    /**
+     * Frames a released bubble may take to come to rest, 3 seconds at 60 Hz.
+     */
+    private static final int MAX_SETTLE_FRAMES = 180;
+    /**
+     * Budget of the median frame, half a frame at 120 Hz so there is room left for drawing.
+     */
+    private static final long MAX_MEDIAN_FRAME_COST_NANOS = 4_000_000L;
+
+    private ManualFrameSource frameSource;
+    private final List<BubbleMovementManager> managers = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        DisplayMetricsCache.resetInstance();
+        frameSource = new ManualFrameSource();
+    }
+
+    @After
+    public void tearDown() {
+        for (BubbleMovementManager manager : managers) {
+            manager.stop();
+        }
+        RuntimeEnvironment.application.unregisterComponentCallbacks(DisplayMetricsCache.getInstance());
+        DisplayMetricsCache.resetInstance();
+    }
+
+    @Test
+    public void flickUp_landsOnTopEdgeAndSettles() throws IOException {
+        final View bubble = createBubble();
+        final BubbleMovementManager manager = createManager(bubble);
+
+        final GestureRecording recording = GestureReplayer.load("flick_up_120hz.bgt");
+        final GestureReplayer.Result result = GestureReplayer.replay(recording, manager, bubble,
+                frameSource, MAX_FRAMES);
+
+        assertFrameBudget(recording, result);
+        assertEquals(0, result.getLandingY(), 0);
+        assertTrue(String.valueOf(result.getLandingX()),
+                result.getLandingX() == 0 || result.getLandingX() == 1080 - 100);
+    }
+
+    @Test
+    public void drag_followsFingerAndDocks() throws IOException {
+        final View bubble = createBubble();
+        final BubbleMovementManager manager = createManager(bubble);
+        final GestureRecording recording = GestureTrace.load("drag_and_hold_120hz.csv").toRecording(2);
+
+        final GestureReplayer.Result result = GestureReplayer.replay(recording, manager, bubble,
+                frameSource, MAX_FRAMES);
+
+        assertFrameBudget(recording, result);
+        assertTrue(result.getLandingX() == 0 || result.getLandingX() == 1080 - 100);
+    }
+
+    @Test
+    public void recordedReplay_reproducesTrajectory() throws IOException {
+        // Quantised like any stored trace, so recording it again is lossless.
+        final GestureRecording source = roundTrip(GestureTrace.load("arc_drag_60hz.csv").toRecording(1));
+
+        // Record what the bubble receives while replaying the source.
+        final View bubble = createBubble();
+        final BubbleMovementManager manager = createManager(bubble);
+        final GestureRecorder recorder = new GestureRecorder();
+        manager.setGestureRecorder(recorder);
+        final GestureReplayer.Result first = GestureReplayer.replay(source, manager, bubble,
+                frameSource, MAX_FRAMES);
+        assertEquals(source.getEventCount(), recorder.getEventCount());
+        assertFrameBudget(source, first);
+
+        final GestureRecording recorded = roundTrip(recorder.toRecording());
+
+        final View otherBubble = createBubble();
+        final GestureReplayer.Result second = GestureReplayer.replay(recorded, createManager(otherBubble),
+                otherBubble, frameSource, MAX_FRAMES);
+
+        assertEquals(first.frames, second.frames);
+        assertTrue(Arrays.equals(Arrays.copyOf(first.xs, first.frames), Arrays.copyOf(second.xs, second.frames)));
+        assertTrue(Arrays.equals(Arrays.copyOf(first.ys, first.frames), Arrays.copyOf(second.ys, second.frames)));
+    }
+
+    /**
+     * Checks the replay took a frame per frame interval of the gesture, settled soon after and kept
+     * its median frame within budget.
+     */
+    private static void assertFrameBudget(GestureRecording recording, GestureReplayer.Result result) {
+        final long durationMillis = recording.getEventTime(recording.getEventCount() - 1) - recording.getEventTime(0);
+        int gestureFrames = 0;
+        while ((gestureFrames + 1) * ManualFrameSource.FRAME_INTERVAL_NANOS / 1_000_000 < durationMillis) {
+            gestureFrames++;
+        }
+        assertEquals(gestureFrames, result.getGestureFrames());
+        assertTrue(result.settled);
+        assertTrue("Settled in " + result.settleFrames + " frames", result.settleFrames < MAX_SETTLE_FRAMES);
+        assertTrue("Median frame took " + result.getMedianFrameCostNanos() + "ns",
+                result.getMedianFrameCostNanos() < MAX_MEDIAN_FRAME_COST_NANOS);
+    }
+
+    private static GestureRecording roundTrip(GestureRecording recording) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        recording.write(out);
+        return GestureRecording.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private View createBubble() {
+        final View bubble = new View(RuntimeEnvironment.application);
+        bubble.layout(0, 0, 100, 100);
+        return bubble;
+    }
+
+    private BubbleMovementManager createManager(View bubble) {
+        final Context context = RuntimeEnvironment.application;
+        final List<View> bubbles = new ArrayList<>();
+        bubbles.add(bubble);
+        final BubbleMovementManager manager = new BubbleMovementManager(context, bubbles, new Rect(0, 0, 1080, 1920),
+                BubbleMovementManager.VIEW_MOVEMENT_FACTORY, MovementConfig.DEFAULT, frameSource);
+        manager.start();
+        managers.add(manager);
+        return manager;
+    }
+}
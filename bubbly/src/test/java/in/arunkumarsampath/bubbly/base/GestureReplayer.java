@@ -0,0 +1,125 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.view.MotionEvent;
+import android.view.View;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Replays a {@link GestureRecording} onto a manager's master bubble in step with a
+ * {@link ManualFrameSource}, and captures the master bubble's trajectory and the time spent in each
+ * frame until the bubbles are idle again.
+ */
+final class GestureReplayer {
+    /**
+     * Frame by frame outcome of a replayed gesture.
+     */
+    static final class Result {
+        /**
+         * Master bubble position after each frame.
+         */
+        final float[] xs;
+        final float[] ys;
+        /**
+         * Wall time spent running each frame's callbacks.
+         */
+        final long[] frameCostNanos;
+        final int frames;
+        /**
+         * Frames run after the last event was delivered until the manager was idle, or until the
+         * frame limit if it never was.
+         */
+        final int settleFrames;
+        final boolean settled;
+
+        Result(float[] xs, float[] ys, long[] frameCostNanos, int frames, int settleFrames, boolean settled) {
+            this.xs = xs;
+            this.ys = ys;
+            this.frameCostNanos = frameCostNanos;
+            this.frames = frames;
+            this.settleFrames = settleFrames;
+            this.settled = settled;
+        }
+
+        float getLandingX() {
+            return xs[frames - 1];
+        }
+
+        float getLandingY() {
+            return ys[frames - 1];
+        }
+
+        /**
+         * @return Frames run while events were still being delivered.
+         */
+        int getGestureFrames() {
+            return frames - settleFrames;
+        }
+
+        long getMedianFrameCostNanos() {
+            final long[] sorted = Arrays.copyOf(frameCostNanos, frames);
+            Arrays.sort(sorted);
+            return sorted[frames / 2];
+        }
+    }
+
+    private GestureReplayer() {
+    }
+
+    /**
+     * Loads a binary trace from the {@code traces/} test resources.
+     */
+    static GestureRecording load(String name) throws IOException {
+        try (InputStream stream = GestureReplayer.class.getClassLoader().getResourceAsStream("traces/" + name)) {
+            if (stream == null) {
+                throw new IOException("Missing trace " + name);
+            }
+            return GestureRecording.read(stream);
+        }
+    }
+
+    /**
+     * Delivers every event of {@code recording} to {@code bubble} on the frame its time falls in,
+     * relative to the first event, then runs frames until {@code manager} is idle.
+     */
+    static Result replay(GestureRecording recording, BubbleMovementManager manager, View bubble,
+                         ManualFrameSource frameSource, int maxFrames) {
+        final float[] xs = new float[maxFrames];
+        final float[] ys = new float[maxFrames];
+        final long[] frameCostNanos = new long[maxFrames];
+
+        final long startTime = recording.getEventTime(0);
+        final long startFrameNanos = frameSource.getFrameTimeNanos();
+        int event = 0;
+        int frames = 0;
+        int settleFrames = 0;
+        while (frames < maxFrames) {
+            final long nextFrameMillis = (frameSource.getFrameTimeNanos() - startFrameNanos
+                    + ManualFrameSource.FRAME_INTERVAL_NANOS) / 1_000_000;
+            while (event < recording.getEventCount()
+                    && recording.getEventTime(event) - startTime <= nextFrameMillis) {
+                final MotionEvent motionEvent = recording.obtainMotionEvent(event, startTime);
+                bubble.dispatchTouchEvent(motionEvent);
+                motionEvent.recycle();
+                event++;
+            }
+            if (event == recording.getEventCount()) {
+                if (manager.getMotionState() == BubbleMovementManager.STATE_IDLE) {
+                    break;
+                }
+                settleFrames++;
+            }
+
+            final long start = System.nanoTime();
+            frameSource.doFrame();
+            frameCostNanos[frames] = System.nanoTime() - start;
+            xs[frames] = manager.getMasterX();
+            ys[frames] = manager.getMasterY();
+            frames++;
+        }
+        final boolean settled = manager.getMotionState() == BubbleMovementManager.STATE_IDLE;
+        return new Result(xs, ys, frameCostNanos, frames, settleFrames, settled);
+    }
+}
@@ -0,0 +1,106 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.view.MotionEvent;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Touch samples of a single gesture loaded from a {@code traces/} test resource. Each line holds
+ * the event time in milliseconds and the raw x and y coordinates, lines starting with {@code #}
+ * are comments.
+ */
+final class GestureTrace {
+    private final long[] times;
+    private final float[] xs;
+    private final float[] ys;
+
+    private GestureTrace(long[] times, float[] xs, float[] ys) {
+        this.times = times;
+        this.xs = xs;
+        this.ys = ys;
+    }
+
+    static GestureTrace load(String name) throws IOException {
+        final InputStream stream = GestureTrace.class.getClassLoader().getResourceAsStream("traces/" + name);
+        if (stream == null) {
+            throw new IOException("Missing trace " + name);
+        }
+        final List<String[]> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, "UTF-8"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    rows.add(line.split(","));
+                }
+            }
+        }
+        final long[] times = new long[rows.size()];
+        final float[] xs = new float[rows.size()];
+        final float[] ys = new float[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            times[i] = Long.parseLong(rows.get(i)[0]);
+            xs[i] = Float.parseFloat(rows.get(i)[1]);
+            ys[i] = Float.parseFloat(rows.get(i)[2]);
+        }
+        return new GestureTrace(times, xs, ys);
+    }
+
+    int size() {
+        return times.length;
+    }
+
+    long getTime(int index) {
+        return times[index];
+    }
+
+    float getX(int index) {
+        return xs[index];
+    }
+
+    float getY(int index) {
+        return ys[index];
+    }
+
+    long getDuration() {
+        return times[times.length - 1] - times[0];
+    }
+
+    /**
+     * Converts the trace into a gesture of a down event, move events each batching up to
+     * {@code samplesPerEvent} samples and an up event on the last sample.
+     */
+    GestureRecording toRecording(int samplesPerEvent) {
+        final GestureRecorder recorder = new GestureRecorder();
+        recorder.startEvent(MotionEvent.ACTION_DOWN);
+        recorder.addSample(times[0], xs[0], ys[0]);
+        final int last = times.length - 1;
+        for (int i = 1; i < last; i += samplesPerEvent) {
+            recorder.startEvent(MotionEvent.ACTION_MOVE);
+            for (int j = i; j < Math.min(last, i + samplesPerEvent); j++) {
+                recorder.addSample(times[j], xs[j], ys[j]);
+            }
+        }
+        recorder.startEvent(MotionEvent.ACTION_UP);
+        recorder.addSample(times[last], xs[last], ys[last]);
+        return recorder.toRecording();
+    }
+
+    /**
+     * Linearly interpolates the finger position at the given time, which must lie within the trace.
+     */
+    void positionAt(long time, float[] out) {
+        int i = 1;
+        while (i < times.length - 1 && times[i] < time) {
+            i++;
+        }
+        final float fraction = (float) (time - times[i - 1]) / (times[i] - times[i - 1]);
+        out[0] = xs[i - 1] + (xs[i] - xs[i - 1]) * fraction;
+        out[1] = ys[i - 1] + (ys[i] - ys[i - 1]) * fraction;
+    }
+}
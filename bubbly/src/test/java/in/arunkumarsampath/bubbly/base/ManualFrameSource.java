@@ -0,0 +1,69 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.support.annotation.NonNull;
+
+/**
+ * A {@link FrameSource} for JVM tests that only produces frames when asked to.
+ */
+public class ManualFrameSource implements FrameSource {
+    public static final long FRAME_INTERVAL_NANOS = 16_666_667L;
+
+    private final FrameCallbackQueue pending = new FrameCallbackQueue();
+    private long frameTimeNanos = 0;
+    private int frameCount = 0;
+
+    @Override
+    public void postFrameCallback(@NonNull Callback callback) {
+        pending.post(callback);
+    }
+
+    @Override
+    public void removeFrameCallback(@NonNull Callback callback) {
+        pending.remove(callback);
+    }
+
+    public boolean hasPendingCallbacks() {
+        return !pending.isEmpty();
+    }
+
+    public long getFrameTimeNanos() {
+        return frameTimeNanos;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Advances the clock by one frame interval and runs the pending callbacks. Like
+     * {@link ChoreographerFrameSource}, callbacks posted during the frame also run in it unless they
+     * already did.
+     */
+    public void doFrame() {
+        frameTimeNanos += FRAME_INTERVAL_NANOS;
+        frameCount++;
+        pending.dispatch(frameTimeNanos);
+    }
+
+    /**
+     * Advances the clock by {@code frames} frame intervals without running any callbacks, as if the
+     * main thread stalled.
+     */
+    public void skipFrames(int frames) {
+        frameTimeNanos += frames * FRAME_INTERVAL_NANOS;
+    }
+
+    /**
+     * Runs frames until no callbacks are pending or {@code maxFrames} is reached.
+     *
+     * @return Number of frames run.
+     */
+    public int runUntilIdle(int maxFrames) {
+        int frames = 0;
+        while (hasPendingCallbacks() && frames < maxFrames) {
+            doFrame();
+            frames++;
+        }
+        return frames;
+    }
+}
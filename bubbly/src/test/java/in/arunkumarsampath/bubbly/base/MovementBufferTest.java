@@ -0,0 +1,60 @@
+package in.arunkumarsampath.bubbly.base;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MovementBufferTest {
+
+    @Test
+    public void add_retainsSamplesInInsertionOrder() {
+        final MovementBuffer buffer = new MovementBuffer(4);
+        buffer.add(1, 10, 100);
+        buffer.add(2, 20, 200);
+
+        assertEquals(2, buffer.size());
+        assertEquals(1, buffer.getX(0), 0);
+        assertEquals(10, buffer.getY(0), 0);
+        assertEquals(100, buffer.getEventTime(0));
+        assertEquals(2, buffer.getX(1), 0);
+        assertEquals(20, buffer.getY(1), 0);
+        assertEquals(200, buffer.getEventTime(1));
+    }
+
+    @Test
+    public void add_whenFull_evictsOldestSample() {
+        final MovementBuffer buffer = new MovementBuffer(3);
+        for (int i = 0; i < 7; i++) {
+            buffer.add(i, -i, i * 10);
+        }
+
+        assertEquals(3, buffer.size());
+        assertEquals(4, buffer.getX(0), 0);
+        assertEquals(-5, buffer.getY(1), 0);
+        assertEquals(60, buffer.getEventTime(2));
+    }
+
+    @Test
+    public void clear_emptiesBuffer() {
+        final MovementBuffer buffer = new MovementBuffer(3);
+        buffer.add(1, 1, 1);
+        buffer.clear();
+
+        assertTrue(buffer.isEmpty());
+        buffer.add(2, 2, 2);
+        assertEquals(2, buffer.getX(0), 0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void get_outOfRange_throws() {
+        final MovementBuffer buffer = new MovementBuffer(3);
+        buffer.add(1, 1, 1);
+        buffer.getX(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_nonPositiveCapacity_throws() {
+        new MovementBuffer(0);
+    }
+}
@@ -0,0 +1,81 @@
+package in.arunkumarsampath.bubbly.base;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MovementConfigTest {
+
+    @Test
+    public void defaults_matchPreviousPhysics() {
+        final MovementConfig config = MovementConfig.DEFAULT;
+
+        assertEquals(200f, config.getSpringStiffness(), 0);
+        assertEquals(0.5f, config.getSpringDampingRatio(), 0);
+        assertEquals(0.5f, config.getFlingFriction(), 0);
+        assertEquals(6f, config.getMinFlingVelocityMultiplier(), 0);
+        assertFalse(config.isProjectedDocking());
+    }
+
+    @Test
+    public void builder_setsValues() {
+        final MovementConfig config = new MovementConfig.Builder()
+                .setSpringStiffness(1500f)
+                .setSpringDampingRatio(1f)
+                .setFlingFriction(1.2f)
+                .setMinFlingVelocityMultiplier(4f)
+                .setProjectedDocking(true)
+                .build();
+
+        assertEquals(1500f, config.getSpringStiffness(), 0);
+        assertEquals(1f, config.getSpringDampingRatio(), 0);
+        assertEquals(1.2f, config.getFlingFriction(), 0);
+        assertEquals(4f, config.getMinFlingVelocityMultiplier(), 0);
+        assertTrue(config.isProjectedDocking());
+    }
+
+    @Test
+    public void buildUpon_keepsProjectedDocking() {
+        final MovementConfig projected = MovementConfig.DEFAULT.buildUpon().setProjectedDocking(true).build();
+
+        assertTrue(projected.buildUpon().build().isProjectedDocking());
+        assertNotEquals(MovementConfig.DEFAULT, projected);
+    }
+
+    @Test
+    public void buildUpon_leavesOriginalUnchanged() {
+        final MovementConfig stiff = MovementConfig.DEFAULT.buildUpon()
+                .setSpringStiffness(1500f)
+                .build();
+
+        assertEquals(200f, MovementConfig.DEFAULT.getSpringStiffness(), 0);
+        assertEquals(1500f, stiff.getSpringStiffness(), 0);
+        assertEquals(MovementConfig.DEFAULT.getFlingFriction(), stiff.getFlingFriction(), 0);
+        assertNotEquals(MovementConfig.DEFAULT, stiff);
+        assertEquals(MovementConfig.DEFAULT, MovementConfig.DEFAULT.buildUpon().build());
+        assertEquals(MovementConfig.DEFAULT.hashCode(), MovementConfig.DEFAULT.buildUpon().build().hashCode());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveStiffness_throws() {
+        new MovementConfig.Builder().setSpringStiffness(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeDampingRatio_throws() {
+        new MovementConfig.Builder().setSpringDampingRatio(-0.1f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveFriction_throws() {
+        new MovementConfig.Builder().setFlingFriction(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveMultiplier_throws() {
+        new MovementConfig.Builder().setMinFlingVelocityMultiplier(0);
+    }
+}
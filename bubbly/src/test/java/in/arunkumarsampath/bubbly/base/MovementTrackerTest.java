@@ -0,0 +1,275 @@
+package in.arunkumarsampath.bubbly.base;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import in.arunkumarsampath.bubbly.AllocationCounter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class MovementTrackerTest {
+
+    @Test
+    public void computeVelocity_constantVelocity_isExact() {
+        final MovementTracker tracker = MovementTracker.obtain();
+        tracker.onDown();
+        for (int i = 0; i < 8; i++) {
+            tracker.addMovement(100 - 10 * i, 100 + 20 * i, 8 * i);
+        }
+
+        final float[] out = new float[2];
+        assertTrue(tracker.computeVelocity(out));
+        assertArrayEquals(new float[]{-1250, 2500}, out, 0.1f);
+        tracker.recycle();
+    }
+
+    @Test
+    public void computeVelocity_followsRecentDirection() {
+        // Dragged right and then flicked back left, the fling must head left.
+        final MovementTracker tracker = MovementTracker.obtain();
+        tracker.onDown();
+        for (int i = 0; i <= 20; i++) {
+            tracker.addMovement(10 * i, 0, 8 * i);
+        }
+        for (int i = 1; i <= 6; i++) {
+            tracker.addMovement(200 - 30 * i, 0, 160 + 8 * i);
+        }
+        tracker.setVelocityWindowMillis(40);
+
+        final float[] out = new float[2];
+        assertTrue(tracker.computeVelocity(out));
+        assertTrue(String.valueOf(out[0]), out[0] < -3000);
+        tracker.recycle();
+    }
+
+    @Test
+    public void computeVelocity_ignoresSamplesOutsideWindow() {
+        final MovementTracker tracker = MovementTracker.obtain();
+        tracker.onDown();
+        tracker.addMovement(0, 0, 0);
+        tracker.addMovement(0, 0, 50);
+        tracker.addMovement(10, 0, 60);
+        tracker.addMovement(20, 0, 70);
+        tracker.setVelocityWindowMillis(20);
+
+        final float[] out = new float[2];
+        assertTrue(tracker.computeVelocity(out));
+        assertEquals(1000, out[0], 0.1);
+        tracker.recycle();
+    }
+
+    @Test
+    public void computeVelocity_ignoresSamplesBeforeRest() {
+        // The finger rested for longer than the sample gap, the old motion must not count.
+        final MovementTracker tracker = MovementTracker.obtain();
+        tracker.onDown();
+        tracker.addMovement(0, 0, 0);
+        tracker.addMovement(50, 0, 8);
+        tracker.addMovement(50, 0, 58);
+        tracker.addMovement(50, 10, 66);
+
+        final float[] out = new float[2];
+        assertTrue(tracker.computeVelocity(out));
+        assertArrayEquals(new float[]{0, 1250}, out, 0.1f);
+        tracker.recycle();
+    }
+
+    @Test
+    public void computeVelocity_tooFewSamples_returnsFalse() {
+        final MovementTracker tracker = MovementTracker.obtain();
+        tracker.onDown();
+        tracker.addMovement(100, 100, 0);
+
+        assertFalse(tracker.computeVelocity(new float[2]));
+        tracker.recycle();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setVelocityWindowMillis_rejectsNonPositive() {
+        final MovementTracker tracker = MovementTracker.obtain();
+        try {
+            tracker.setVelocityWindowMillis(0);
+        } finally {
+            tracker.recycle();
+        }
+    }
+
+    @Test
+    public void interpolateVelocities_rampsUpSlowFlingTowardsFarEdge() {
+        // Lifted at the left quarter of a 1000px wide bounds with a slow rightward fling.
+        final float[] velocities = new float[]{100, 50};
+        MovementTracker.interpolateVelocities(250, 1000, 4000, velocities);
+
+        assertEquals(3000, velocities[0], 0.01);
+        assertEquals(50 + 50 * (100 / 3000f), velocities[1], 0.01);
+    }
+
+    @Test
+    public void interpolateVelocities_rampsUpSlowLeftwardFlingTowardsFarEdge() {
+        final float[] velocities = new float[]{-100, 50};
+        MovementTracker.interpolateVelocities(750, 1000, 4000, velocities);
+
+        assertEquals(-3000, velocities[0], 0.01);
+        assertEquals(50 + 50 * (100 / 3000f), velocities[1], 0.01);
+    }
+
+    @Test
+    public void interpolateVelocities_keepsFastLeftwardFling() {
+        final float[] velocities = new float[]{-5000, 50};
+        MovementTracker.interpolateVelocities(750, 1000, 4000, velocities);
+
+        assertEquals(-5000, velocities[0], 0.01);
+        assertEquals(100, velocities[1], 0.01);
+    }
+
+    @Test
+    public void interpolateVelocities_atLeftEdge_staysFinite() {
+        final float[] velocities = new float[]{-100, 50};
+        MovementTracker.interpolateVelocities(0, 1000, 4000, velocities);
+
+        assertArrayEquals(new float[]{-100, 100}, velocities, 0.01f);
+    }
+
+    @Test
+    public void interpolateVelocities_withoutXVelocity_leavesVelocitiesUnchanged() {
+        final float[] velocities = new float[]{0, 50};
+        MovementTracker.interpolateVelocities(0, 1000, 4000, velocities);
+
+        assertArrayEquals(new float[]{0, 50}, velocities, 0);
+    }
+
+    @Test
+    public void setVelocityWindowMillis_longerThanRing_fitsWholeWindow() {
+        // 61 samples at 200Hz span the window, more than the 32 the ring starts out with. The finger
+        // rests for the first half, so dropping the oldest samples would change the fit.
+        final MovementTracker whole = MovementTracker.obtain();
+        whole.setVelocityWindowMillis(300);
+        final MovementTracker recent = MovementTracker.obtain();
+        recent.setVelocityWindowMillis(300);
+        for (int i = 0; i <= 60; i++) {
+            final long time = 5L * i;
+            final float x = Math.max(0, time - 150);
+            whole.addMovement(x, 0, time);
+            if (i > 60 - 32) {
+                recent.addMovement(x, 0, time);
+            }
+        }
+
+        assertTrue(whole.getSampleCapacity() >= 300 * MovementTracker.MAX_SAMPLE_RATE_HZ / 1000);
+        final float[] wholeVelocity = new float[2];
+        final float[] recentVelocity = new float[2];
+        assertTrue(whole.computeVelocity(wholeVelocity));
+        assertTrue(recent.computeVelocity(recentVelocity));
+        assertTrue(wholeVelocity[0] + " vs " + recentVelocity[0],
+                Math.abs(wholeVelocity[0] - recentVelocity[0]) > 100);
+        whole.recycle();
+        recent.recycle();
+    }
+
+    @Test
+    public void setVelocityWindowMillis_growingRing_keepsTrackedSamples() {
+        final MovementTracker tracker = MovementTracker.obtain();
+        for (int i = 0; i < 8; i++) {
+            tracker.addMovement(10 * i, 0, 8 * i);
+        }
+        tracker.setVelocityWindowMillis(500);
+
+        final float[] out = new float[2];
+        assertTrue(tracker.computeVelocity(out));
+        assertEquals(1250, out[0], 0.1);
+        tracker.recycle();
+    }
+
+    @Test
+    public void computeVelocity_doesNotAllocate() {
+        assumeTrue(AllocationCounter.isSupported());
+        final MovementTracker tracker = MovementTracker.obtain();
+        for (int i = 0; i < 40; i++) {
+            tracker.addMovement(i, i * 2, i * 8L);
+        }
+        final float[] out = new float[2];
+
+        assertEquals(0, AllocationCounter.measure(() -> tracker.computeVelocity(out)));
+        tracker.recycle();
+    }
+
+    @Test
+    public void addMovement_doesNotAllocatePerSample() {
+        assumeTrue(AllocationCounter.isSupported());
+        final MovementTracker tracker = MovementTracker.obtain();
+
+        final long allocated = AllocationCounter.measure(() -> {
+            tracker.onDown();
+            for (int i = 0; i < 10_000; i++) {
+                tracker.addMovement(i, i * 2, i * 8L);
+            }
+            tracker.onUp();
+        });
+
+        assertEquals(0, allocated);
+    }
+
+    @Test
+    public void obtain_afterRecycle_reusesInstance() {
+        final MovementTracker tracker = MovementTracker.obtain();
+        tracker.addMovement(1, 1, 1);
+        tracker.addMovement(2, 2, 2);
+        tracker.setVelocityWindowMillis(20);
+        tracker.recycle();
+
+        final MovementTracker reused = MovementTracker.obtain();
+        assertSame(tracker, reused);
+        assertFalse(reused.computeVelocity(new float[2]));
+        assertEquals(MovementTracker.DEFAULT_VELOCITY_WINDOW_MILLIS, reused.getVelocityWindowMillis());
+        reused.recycle();
+    }
+
+    @Test
+    public void obtain_withEmptyPool_createsDistinctInstances() {
+        final MovementTracker first = MovementTracker.obtain();
+        final MovementTracker second = MovementTracker.obtain();
+
+        assertNotSame(first, second);
+        first.recycle();
+        second.recycle();
+    }
+
+    @Test
+    public void recycle_poolIsBounded() throws Exception {
+        final MovementTracker[] trackers = new MovementTracker[8];
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        // Run on a fresh thread so the pool starts out empty.
+        final Thread thread = new Thread(() -> {
+            for (int i = 0; i < trackers.length; i++) {
+                trackers[i] = MovementTracker.obtain();
+            }
+            for (MovementTracker tracker : trackers) {
+                tracker.recycle();
+            }
+            // Only the first four recycled trackers fit, the rest are dropped.
+            for (int i = 3; i >= 0; i--) {
+                assertSame(trackers[i], MovementTracker.obtain());
+            }
+            assertNotSame(trackers[7], MovementTracker.obtain());
+        });
+        thread.setUncaughtExceptionHandler((t, e) -> failure.set(e));
+        thread.start();
+        thread.join();
+        assertNull(failure.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void recycle_twice_throws() {
+        final MovementTracker tracker = MovementTracker.obtain();
+        tracker.recycle();
+        tracker.recycle();
+    }
+}
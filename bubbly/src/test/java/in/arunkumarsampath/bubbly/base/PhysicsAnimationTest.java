@@ -0,0 +1,50 @@
+package in.arunkumarsampath.bubbly.base;
+
+import org.junit.Test;
+
+import in.arunkumarsampath.bubbly.physics.FlingSimulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PhysicsAnimationTest {
+
+    @Test
+    public void animation_stepsSimulationOncePerFrameUntilEnd() {
+        final ManualFrameSource frameSource = new ManualFrameSource();
+        final FlingSimulation fling = new FlingSimulation().setFriction(0.5f).setMaxValue(500).setStartVelocity(3000);
+        final int[] updates = new int[1];
+        final float[] end = new float[]{Float.NaN};
+        final PhysicsAnimation animation = new PhysicsAnimation(frameSource, fling,
+                (value, velocity) -> updates[0]++,
+                (value, velocity) -> end[0] = value);
+
+        animation.start();
+        final int frames = frameSource.runUntilIdle(500);
+
+        assertFalse(animation.isRunning());
+        assertEquals(500, end[0], 0);
+        // The first frame only establishes the time base.
+        assertEquals(frames, updates[0]);
+        assertTrue(frames > 2);
+    }
+
+    @Test
+    public void cancel_stopsWithoutNotifyingEnd() {
+        final ManualFrameSource frameSource = new ManualFrameSource();
+        final FlingSimulation fling = new FlingSimulation().setStartVelocity(3000);
+        final boolean[] ended = new boolean[1];
+        final PhysicsAnimation animation = new PhysicsAnimation(frameSource, fling,
+                (value, velocity) -> {
+                },
+                (value, velocity) -> ended[0] = true);
+
+        animation.start();
+        frameSource.doFrame();
+        animation.cancel();
+
+        assertFalse(frameSource.hasPendingCallbacks());
+        assertFalse(ended[0]);
+    }
+}
@@ -0,0 +1,206 @@
+package in.arunkumarsampath.bubbly.base;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import in.arunkumarsampath.bubbly.physics.FlingSimulation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SnapTargetRegistryTest {
+    private SnapTargetRegistry registry;
+    private final float[] out = new float[2];
+
+    @Before
+    public void setUp() {
+        registry = new SnapTargetRegistry();
+        registry.setRange(0, 0, 980, 1820);
+    }
+
+    @Test
+    public void defaultEdges_docksToNearestSideAndClampsY() {
+        assertNull(registry.findTarget(300, 500, out));
+        assertArrayEquals(new float[]{0, 500}, out, 0);
+
+        assertNull(registry.findTarget(700, 2500, out));
+        assertArrayEquals(new float[]{980, 1820}, out, 0);
+    }
+
+    @Test
+    public void allEdges_docksToNearestEdge() {
+        registry.setEdges(SnapTargetRegistry.EDGES_ALL);
+
+        registry.findTarget(400, 50, out);
+        assertArrayEquals(new float[]{400, 0}, out, 0);
+
+        registry.findTarget(500, 1700, out);
+        assertArrayEquals(new float[]{500, 1820}, out, 0);
+
+        registry.findTarget(900, 900, out);
+        assertArrayEquals(new float[]{980, 900}, out, 0);
+    }
+
+    @Test
+    public void noTargets_staysWithinRange() {
+        registry.setEdges(0);
+
+        assertNull(registry.findTarget(-50, 900, out));
+        assertArrayEquals(new float[]{0, 900}, out, 0);
+    }
+
+    @Test
+    public void pointWithinRadius_winsOverEdge() {
+        final SnapTarget point = registry.addPoint(490, 1600, 150);
+
+        assertSame(point, registry.findTarget(420, 1500, out));
+        assertArrayEquals(new float[]{490, 1600}, out, 0);
+    }
+
+    @Test
+    public void pointOutsideRadius_losesToEdge() {
+        registry.addPoint(490, 1600, 50);
+
+        assertNull(registry.findTarget(420, 1500, out));
+        assertArrayEquals(new float[]{0, 1500}, out, 0);
+    }
+
+    @Test
+    public void noEdges_docksToNearestPointOutsideRadius() {
+        registry.setEdges(0);
+        registry.addPoint(0, 0, 0);
+        final SnapTarget far = registry.addPoint(980, 1820, 0);
+
+        assertSame(far, registry.findTarget(700, 1200, out));
+    }
+
+    @Test
+    public void largerRadius_winsOverCloserPoint() {
+        registry.addPoint(500, 900, 10);
+        final SnapTarget magnet = registry.addPoint(600, 900, 200);
+
+        assertSame(magnet, registry.findTarget(520, 900, out));
+    }
+
+    @Test
+    public void addCorners_docksIntoCorner() {
+        registry.setEdges(SnapTargetRegistry.EDGES_ALL);
+        registry.addCorners(100);
+        assertEquals(4, registry.getPointCount());
+
+        assertTrue(registry.findTarget(950, 30, out) != null);
+        assertArrayEquals(new float[]{980, 0}, out, 0);
+    }
+
+    @Test
+    public void corners_followRangeChanges() {
+        final SnapTargetRegistry fresh = new SnapTargetRegistry();
+        final SnapTarget bottomRight = fresh.addCorner(
+                SnapTargetRegistry.EDGE_RIGHT | SnapTargetRegistry.EDGE_BOTTOM, 100);
+        fresh.setRange(0, 0, 980, 1820);
+
+        assertSame(bottomRight, fresh.findTarget(950, 1800, out));
+        assertArrayEquals(new float[]{980, 1820}, out, 0);
+
+        // Rotated to landscape.
+        fresh.setRange(0, 0, 1820, 980);
+        assertSame(bottomRight, fresh.findTarget(1800, 950, out));
+        assertArrayEquals(new float[]{1820, 980}, out, 0);
+        assertNull(fresh.findTarget(950, 1800, out));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addCorner_withoutVerticalEdge_throws() {
+        registry.addCorner(SnapTargetRegistry.EDGE_LEFT, 100);
+    }
+
+    @Test
+    public void remove_rebuildsIndex() {
+        final SnapTarget point = registry.addPoint(490, 900, 200);
+        assertSame(point, registry.findTarget(490, 900, out));
+
+        assertTrue(registry.remove(point));
+        assertFalse(registry.remove(point));
+        assertNull(registry.findTarget(490, 900, out));
+
+        registry.addPoint(490, 900, 200);
+        registry.clearPoints();
+        assertEquals(0, registry.getPointCount());
+        assertNull(registry.findTarget(490, 900, out));
+    }
+
+    @Test
+    public void findTarget_matchesBruteForce() {
+        registry.setEdges(0);
+        final Random random = new Random(42);
+        final List<SnapTarget> points = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            points.add(registry.addPoint(random.nextFloat() * 980, random.nextFloat() * 1820, random.nextFloat() * 80));
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            final float x = random.nextFloat() * 1200 - 100;
+            final float y = random.nextFloat() * 2000 - 100;
+            SnapTarget expected = null;
+            float expectedScore = Float.MAX_VALUE;
+            for (SnapTarget point : points) {
+                final float score = (float) Math.hypot(point.getX() - x, point.getY() - y) - point.getRadius();
+                if (score < expectedScore) {
+                    expectedScore = score;
+                    expected = point;
+                }
+            }
+            assertSame(expected, registry.findTarget(x, y, out));
+        }
+    }
+
+    @Test
+    public void findTarget_visitsLogarithmicallyManyPoints() {
+        registry.setEdges(0);
+        final Random random = new Random(7);
+        final int count = 4096;
+        for (int i = 0; i < count; i++) {
+            registry.addPoint(random.nextFloat() * 980, random.nextFloat() * 1820, 24);
+        }
+
+        long visits = 0;
+        final int queries = 1000;
+        for (int i = 0; i < queries; i++) {
+            registry.findTarget(random.nextFloat() * 980, random.nextFloat() * 1820, out);
+            visits += registry.getLastVisitCount();
+        }
+        // log2(4096) = 12, a nearest neighbour search touches a small multiple of that.
+        final double average = (double) visits / queries;
+        assertTrue(String.valueOf(average), average < 8 * 12);
+    }
+
+    @Test
+    public void projectedLanding_slowFlingCrossesToFarEdge() {
+        // Released at the left quarter yet flung right fast enough to land past the middle.
+        final float landingX = FlingSimulation.projectEndValue(250, 1500, 0.5f);
+        assertTrue(landingX > 490);
+
+        assertNull(registry.findTarget(landingX, 900, out));
+        assertEquals(980, out[0], 0);
+    }
+
+    @Test
+    public void projectedLanding_reachesMagnetOnTheWay() {
+        final SnapTarget magnet = registry.addPoint(490, 300, 120);
+
+        // Flung upwards from the bottom middle, the landing point falls near the magnet.
+        final float landingX = FlingSimulation.projectEndValue(480, 0, 0.5f);
+        final float landingY = FlingSimulation.projectEndValue(1500, -2400, 0.5f);
+
+        assertSame(magnet, registry.findTarget(landingX, landingY, out));
+        assertArrayEquals(new float[]{490, 300}, out, 0);
+    }
+}
@@ -0,0 +1,166 @@
+package in.arunkumarsampath.bubbly.base;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays gesture traces through {@link MovementTracker#predictPosition(long, float[])} and
+ * compares the prediction one frame ahead with where the finger actually was.
+ */
+public class TouchPredictionTest {
+    private static final long FRAME_MILLIS = 16;
+
+    private MovementTracker tracker;
+
+    @Before
+    public void setUp() {
+        tracker = MovementTracker.obtain();
+        tracker.onDown();
+    }
+
+    @After
+    public void tearDown() {
+        tracker.recycle();
+    }
+
+    @Test
+    public void predictPosition_noSamples_returnsFalse() {
+        assertFalse(tracker.predictPosition(16, new float[2]));
+    }
+
+    @Test
+    public void predictPosition_singleSample_returnsSample() {
+        tracker.addMovement(10, 20, 0);
+
+        final float[] out = new float[2];
+        assertTrue(tracker.predictPosition(16, out));
+        assertArrayEquals(new float[]{10, 20}, out, 0);
+    }
+
+    @Test
+    public void predictPosition_constantVelocity_extrapolatesExactly() {
+        for (int i = 0; i < 5; i++) {
+            tracker.addMovement(100 + 2 * 8 * i, 300 - 8 * i, 8 * i);
+        }
+
+        final float[] out = new float[2];
+        assertTrue(tracker.predictPosition(32 + 16, out));
+        assertEquals(100 + 2 * 48, out[0], 0.01);
+        assertEquals(300 - 48, out[1], 0.01);
+    }
+
+    @Test
+    public void predictPosition_limitsHorizon() {
+        tracker.addMovement(0, 0, 0);
+        tracker.addMovement(10, 0, 10);
+
+        final float[] out = new float[2];
+        tracker.predictPosition(10 + 1000, out);
+        assertEquals(10 + MovementTracker.MAX_PREDICTION_MILLIS, out[0], 0.01);
+    }
+
+    @Test
+    public void predictPosition_ignoresStaleSamples() {
+        // Finger rested for a while before moving again, the old rest must not flatten the fit.
+        tracker.addMovement(0, 0, 0);
+        tracker.addMovement(0, 0, 200);
+        tracker.addMovement(10, 0, 208);
+        tracker.addMovement(20, 0, 216);
+
+        final float[] out = new float[2];
+        tracker.predictPosition(216 + 8, out);
+        assertEquals(30, out[0], 0.01);
+    }
+
+    @Test
+    public void horizontalDrag_predictionHalvesTrailingError() throws IOException {
+        final Errors errors = replay(GestureTrace.load("horizontal_drag_120hz.csv"));
+
+        assertTrue(errors.toString(), errors.predictedMean() < 0.5 * errors.trailingMean());
+    }
+
+    @Test
+    public void arcDrag_predictionHalvesTrailingError() throws IOException {
+        final Errors errors = replay(GestureTrace.load("arc_drag_60hz.csv"));
+
+        assertTrue(errors.toString(), errors.predictedMean() < 0.5 * errors.trailingMean());
+    }
+
+    @Test
+    public void dragAndHold_overshootIsBounded() throws IOException {
+        final GestureTrace trace = GestureTrace.load("drag_and_hold_120hz.csv");
+        final Errors errors = replay(trace);
+
+        // Stopping abruptly from 2.5 px/ms overshoots by about the distance the finger would have
+        // covered within a frame, plus a few pixels of fit lag.
+        assertTrue(errors.toString(), errors.predictedMean() < errors.trailingMean());
+        assertTrue(errors.toString(), errors.predictedMax < 3 * FRAME_MILLIS);
+
+        // Once the finger has rested for a whole fit window the prediction sits on it.
+        final float[] out = new float[2];
+        tracker.predictPosition(trace.getTime(trace.size() - 1) + FRAME_MILLIS, out);
+        final int last = trace.size() - 1;
+        assertEquals(trace.getX(last), out[0], 1);
+        assertEquals(trace.getY(last), out[1], 1);
+    }
+
+    /**
+     * Feeds the trace sample by sample and, after each one, measures the distance from where the
+     * finger is one frame later to both the prediction and the latest sample.
+     */
+    private Errors replay(GestureTrace trace) {
+        final Errors errors = new Errors();
+        final float[] predicted = new float[2];
+        final float[] actual = new float[2];
+        for (int i = 0; i < trace.size(); i++) {
+            tracker.addMovement(trace.getX(i), trace.getY(i), trace.getTime(i));
+            final long target = trace.getTime(i) + FRAME_MILLIS;
+            if (target > trace.getTime(trace.size() - 1)) {
+                break;
+            }
+            trace.positionAt(target, actual);
+            assertTrue(tracker.predictPosition(target, predicted));
+
+            errors.add(
+                    (float) Math.hypot(predicted[0] - actual[0], predicted[1] - actual[1]),
+                    (float) Math.hypot(trace.getX(i) - actual[0], trace.getY(i) - actual[1]));
+        }
+        return errors;
+    }
+
+    private static final class Errors {
+        private int count;
+        private double predictedSum;
+        private double trailingSum;
+        private float predictedMax;
+
+        void add(float predicted, float trailing) {
+            count++;
+            predictedSum += predicted;
+            trailingSum += trailing;
+            predictedMax = Math.max(predictedMax, predicted);
+        }
+
+        double predictedMean() {
+            return predictedSum / count;
+        }
+
+        double trailingMean() {
+            return trailingSum / count;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("predicted mean %.2f px (max %.2f px), trailing mean %.2f px over %d samples",
+                    predictedMean(), predictedMax, trailingMean(), count);
+        }
+    }
+}
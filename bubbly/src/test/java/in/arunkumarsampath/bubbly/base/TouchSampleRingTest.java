@@ -0,0 +1,117 @@
+package in.arunkumarsampath.bubbly.base;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import in.arunkumarsampath.bubbly.AllocationCounter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TouchSampleRingTest {
+
+    @Test
+    public void poll_returnsSamplesInOrder() {
+        final TouchSampleRing ring = new TouchSampleRing(4);
+        final TouchSampleRing.Sample sample = new TouchSampleRing.Sample();
+        assertFalse(ring.poll(sample));
+
+        assertTrue(ring.offer(TouchSampleRing.KIND_DOWN, 10, 1, 2));
+        assertTrue(ring.offer(TouchSampleRing.KIND_MOVE, 18, 3, 4));
+
+        assertTrue(ring.poll(sample));
+        assertEquals(TouchSampleRing.KIND_DOWN, sample.kind);
+        assertEquals(10, sample.time);
+        assertEquals(1, sample.x, 0);
+        assertEquals(2, sample.y, 0);
+        assertTrue(ring.poll(sample));
+        assertEquals(TouchSampleRing.KIND_MOVE, sample.kind);
+        assertEquals(18, sample.time);
+        assertFalse(ring.poll(sample));
+        assertEquals(2, ring.getWrittenCount());
+        assertEquals(2, ring.getReadCount());
+    }
+
+    @Test
+    public void offer_whenFull_dropsSample() {
+        final TouchSampleRing ring = new TouchSampleRing(2);
+        final TouchSampleRing.Sample sample = new TouchSampleRing.Sample();
+
+        assertTrue(ring.offer(TouchSampleRing.KIND_MOVE, 1, 0, 0));
+        assertTrue(ring.offer(TouchSampleRing.KIND_MOVE, 2, 0, 0));
+        assertFalse(ring.offer(TouchSampleRing.KIND_MOVE, 3, 0, 0));
+
+        assertTrue(ring.poll(sample));
+        assertEquals(1, sample.time);
+        // Wraps around into the freed slot.
+        assertTrue(ring.offer(TouchSampleRing.KIND_MOVE, 4, 0, 0));
+        assertTrue(ring.poll(sample));
+        assertEquals(2, sample.time);
+        assertTrue(ring.poll(sample));
+        assertEquals(4, sample.time);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacity_mustBePowerOfTwo() {
+        new TouchSampleRing(100);
+    }
+
+    @Test
+    public void offerAndPoll_doNotAllocate() {
+        if (!AllocationCounter.isSupported()) {
+            return;
+        }
+        final TouchSampleRing ring = new TouchSampleRing(64);
+        final TouchSampleRing.Sample sample = new TouchSampleRing.Sample();
+        final long allocated = AllocationCounter.measure(() -> {
+            for (int i = 0; i < 1000; i++) {
+                ring.offer(TouchSampleRing.KIND_MOVE, i, i, i);
+                ring.poll(sample);
+            }
+        });
+        assertEquals(0, allocated);
+    }
+
+    @Test
+    public void handoff_underStress_keepsEverySampleInOrder() throws InterruptedException {
+        final int samples = 2_000_000;
+        final TouchSampleRing ring = new TouchSampleRing(64);
+        final AtomicReference<String> failure = new AtomicReference<>();
+
+        final Thread consumer = new Thread(() -> {
+            final TouchSampleRing.Sample sample = new TouchSampleRing.Sample();
+            long expected = 0;
+            while (expected < samples) {
+                if (!ring.poll(sample)) {
+                    Thread.yield();
+                    continue;
+                }
+                // Every field of a slot must come from the same offer.
+                if (sample.time != expected || sample.x != (float) (expected % 4096)
+                        || sample.y != -(float) (expected % 4096) || sample.kind != (int) (expected % 3)) {
+                    failure.compareAndSet(null, "Sample " + expected + " read as " + sample.time + ", "
+                            + sample.x + ", " + sample.y + ", " + sample.kind);
+                    return;
+                }
+                expected++;
+            }
+        });
+        consumer.start();
+
+        for (long i = 0; i < samples; ) {
+            if (ring.offer((int) (i % 3), i, i % 4096, -(i % 4096))) {
+                i++;
+            } else {
+                Thread.yield();
+            }
+        }
+        consumer.join(60_000);
+
+        assertFalse(consumer.isAlive());
+        assertNull(failure.get(), failure.get());
+        assertEquals(samples, ring.getReadCount());
+    }
+}
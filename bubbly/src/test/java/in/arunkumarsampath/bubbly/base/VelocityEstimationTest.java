@@ -0,0 +1,71 @@
+package in.arunkumarsampath.bubbly.base;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays gesture traces through {@link MovementTracker#computeVelocity(float[])} and checks the
+ * estimate at release against the velocity the trace was drawn with.
+ */
+public class VelocityEstimationTest {
+    private MovementTracker tracker;
+    private final float[] velocity = new float[2];
+
+    @Before
+    public void setUp() {
+        tracker = MovementTracker.obtain();
+        tracker.onDown();
+    }
+
+    @After
+    public void tearDown() {
+        tracker.recycle();
+    }
+
+    @Test
+    public void flick_matchesReleaseVelocity() throws IOException {
+        replay(GestureTrace.load("flick_up_120hz.csv"));
+
+        assertTrue(tracker.computeVelocity(velocity));
+        assertEquals(2200, velocity[0], 2200 * 0.05);
+        assertEquals(-13300, velocity[1], 13300 * 0.05);
+    }
+
+    @Test
+    public void flick_shortWindow_matchesReleaseVelocity() throws IOException {
+        tracker.setVelocityWindowMillis(40);
+        replay(GestureTrace.load("flick_up_120hz.csv"));
+
+        assertTrue(tracker.computeVelocity(velocity));
+        assertEquals(2200, velocity[0], 2200 * 0.1);
+        assertEquals(-13300, velocity[1], 13300 * 0.1);
+    }
+
+    @Test
+    public void dragEndingAtRest_reportsLowVelocity() throws IOException {
+        replay(GestureTrace.load("horizontal_drag_120hz.csv"));
+
+        assertTrue(tracker.computeVelocity(velocity));
+        assertTrue(velocity[0] + ", " + velocity[1], Math.hypot(velocity[0], velocity[1]) < 300);
+    }
+
+    @Test
+    public void dragAndHold_reportsRest() throws IOException {
+        replay(GestureTrace.load("drag_and_hold_120hz.csv"));
+
+        assertTrue(tracker.computeVelocity(velocity));
+        assertTrue(velocity[0] + ", " + velocity[1], Math.hypot(velocity[0], velocity[1]) < 100);
+    }
+
+    private void replay(GestureTrace trace) {
+        for (int i = 0; i < trace.size(); i++) {
+            tracker.addMovement(trace.getX(i), trace.getY(i), trace.getTime(i));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Feeds the same batched motion events of gesture traces to {@link MovementTracker} and the
+ * platform {@link VelocityTracker} and compares their velocities at release.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class VelocityTrackerComparisonTest {
+    /**
+     * Number of touch samples batched into each move event, like input delivered once per frame.
+     */
+    private static final int SAMPLES_PER_EVENT = 2;
+
+    private MovementTracker tracker;
+    private VelocityTracker velocityTracker;
+    private final float[] velocity = new float[2];
+
+    @Before
+    public void setUp() {
+        tracker = MovementTracker.obtain();
+        velocityTracker = VelocityTracker.obtain();
+    }
+
+    @After
+    public void tearDown() {
+        tracker.recycle();
+        velocityTracker.recycle();
+    }
+
+    @Test
+    public void batchedEvents_matchIndividualSamples() throws IOException {
+        final GestureTrace trace = GestureTrace.load("arc_drag_60hz.csv");
+        replay(trace);
+        assertTrue(tracker.computeVelocity(velocity));
+
+        final MovementTracker individual = MovementTracker.obtain();
+        for (int i = 0; i < trace.size(); i++) {
+            individual.addMovement(trace.getX(i), trace.getY(i), trace.getTime(i));
+        }
+        final float[] expected = new float[2];
+        assertTrue(individual.computeVelocity(expected));
+        individual.recycle();
+
+        assertArrayEquals(expected, velocity, 0.01f);
+    }
+
+    @Test
+    public void flick_atLeastAsCloseToReleaseVelocity() throws IOException {
+        replay(GestureTrace.load("flick_up_120hz.csv"));
+        assertTrue(tracker.computeVelocity(velocity));
+        velocityTracker.computeCurrentVelocity(1000);
+
+        // The trace was drawn with a release velocity of {2200, -13300} px/s.
+        final double error = Math.hypot(velocity[0] - 2200, velocity[1] + 13300);
+        final double platformError = Math.hypot(velocityTracker.getXVelocity() - 2200,
+                velocityTracker.getYVelocity() + 13300);
+        assertTrue(error + " > " + platformError, error <= platformError + 100);
+        assertEquals(Math.signum(velocityTracker.getXVelocity()), Math.signum(velocity[0]), 0);
+        assertEquals(Math.signum(velocityTracker.getYVelocity()), Math.signum(velocity[1]), 0);
+    }
+
+    @Test
+    public void arcDrag_agreesWithPlatformDirection() throws IOException {
+        final GestureTrace trace = GestureTrace.load("arc_drag_60hz.csv");
+        // Release half way through the arc while the finger still moves fast.
+        replay(trace, trace.size() / 2);
+        assertTrue(tracker.computeVelocity(velocity));
+        velocityTracker.computeCurrentVelocity(1000);
+
+        final double angle = Math.atan2(velocity[1], velocity[0]);
+        final double platformAngle = Math.atan2(velocityTracker.getYVelocity(), velocityTracker.getXVelocity());
+        assertEquals(platformAngle, angle, Math.toRadians(15));
+    }
+
+    private void replay(GestureTrace trace) {
+        replay(trace, trace.size());
+    }
+
+    /**
+     * Delivers the first {@code count} samples of the trace as a down event followed by move
+     * events each batching up to {@link #SAMPLES_PER_EVENT} samples.
+     */
+    private void replay(GestureTrace trace, int count) {
+        final MotionEvent down = MotionEvent.obtain(0, trace.getTime(0), MotionEvent.ACTION_DOWN,
+                trace.getX(0), trace.getY(0), 0);
+        add(down);
+        down.recycle();
+
+        for (int i = 1; i < count; i += SAMPLES_PER_EVENT) {
+            final MotionEvent move = MotionEvent.obtain(0, trace.getTime(i), MotionEvent.ACTION_MOVE,
+                    trace.getX(i), trace.getY(i), 0);
+            for (int j = i + 1; j < Math.min(count, i + SAMPLES_PER_EVENT); j++) {
+                move.addBatch(trace.getTime(j), trace.getX(j), trace.getY(j), 1, 1, 0);
+            }
+            add(move);
+            move.recycle();
+        }
+    }
+
+    private void add(MotionEvent event) {
+        tracker.addMovement(event);
+        velocityTracker.addMovement(event);
+    }
+}
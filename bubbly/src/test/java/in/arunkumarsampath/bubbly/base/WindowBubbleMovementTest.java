@@ -0,0 +1,104 @@
+package in.arunkumarsampath.bubbly.base;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.WindowManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+public class WindowBubbleMovementTest {
+    private ManualFrameSource frameSource;
+    private CountingWindowManager windowManager;
+    private WindowManager.LayoutParams layoutParams;
+    private WindowBubbleMovement movement;
+
+    @Before
+    public void setUp() {
+        frameSource = new ManualFrameSource();
+        windowManager = new CountingWindowManager();
+        layoutParams = new WindowManager.LayoutParams();
+        layoutParams.x = 10;
+        layoutParams.y = 20;
+
+        final View view = new View(RuntimeEnvironment.application);
+        view.setLayoutParams(layoutParams);
+        movement = new WindowBubbleMovement(frameSource, windowManager.windowManager, view);
+    }
+
+    @Test
+    public void initialPosition_isTakenFromLayoutParams() {
+        assertEquals(10, movement.getX(), 0);
+        assertEquals(20, movement.getY(), 0);
+    }
+
+    @Test
+    public void updatesWithinAFrame_issueOneWindowUpdate() {
+        movement.moveX(100, 0);
+        movement.moveY(200, 0);
+        movement.moveX(110, 0);
+        frameSource.doFrame();
+
+        assertEquals(1, windowManager.updates);
+        assertEquals(1, movement.getWindowUpdates());
+        assertSame(layoutParams, windowManager.lastParams);
+        assertEquals(110, layoutParams.x);
+        assertEquals(200, layoutParams.y);
+    }
+
+    @Test
+    public void subPixelMovement_skipsWindowUpdate() {
+        movement.moveX(10.3f, 0);
+        movement.moveY(19.6f, 0);
+        frameSource.doFrame();
+
+        assertEquals(0, windowManager.updates);
+        assertEquals(1, movement.getAppliedFrames());
+    }
+
+    @Test
+    public void gesture_countsWindowUpdatesPerFrameWithChange() {
+        for (int i = 1; i <= 30; i++) {
+            movement.moveX(10 + i, 0);
+            movement.moveY(20 + i * 0.25f, 0);
+            frameSource.doFrame();
+        }
+        assertEquals(30, windowManager.updates);
+        assertEquals(60, movement.getRequestedUpdates());
+
+        movement.resetCounters();
+        assertEquals(0, movement.getWindowUpdates());
+    }
+
+    /**
+     * Records {@link WindowManager#updateViewLayout} calls. Implemented as a proxy since
+     * {@link WindowManager} has hidden abstract methods that vary between platform versions.
+     */
+    private static class CountingWindowManager implements InvocationHandler {
+        int updates;
+        ViewGroup.LayoutParams lastParams;
+
+        final WindowManager windowManager = (WindowManager) Proxy.newProxyInstance(
+                WindowManager.class.getClassLoader(), new Class<?>[]{WindowManager.class}, this);
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getName().equals("updateViewLayout")) {
+                updates++;
+                lastParams = (ViewGroup.LayoutParams) args[1];
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package in.arunkumarsampath.bubbly.physics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FlingSimulationTest {
+    private static final long FRAME_NANOS = 16_666_667L;
+
+    @Test
+    public void trajectory_matchesGolden() {
+        final FlingSimulation fling = new FlingSimulation()
+                .setFriction(0.5f)
+                .setMinValue(0)
+                .setMaxValue(1000)
+                .setStartValue(100)
+                .setStartVelocity(3000);
+
+        final float[][] golden = {
+                // frame, value, velocity
+                {5, 329.34692f, 2518.3713f},
+                {10, 521.8739f, 2114.0647f},
+                {15, 683.49207f, 1774.6667f},
+                {20, 819.1636f, 1489.7566f},
+                {25, 933.05396f, 1250.5868f},
+        };
+        int frame = 0;
+        for (float[] point : golden) {
+            while (frame < point[0]) {
+                fling.step(FRAME_NANOS);
+                frame++;
+            }
+            assertEquals("value at frame " + frame, point[1], fling.getValue(), 0.01f);
+            assertEquals("velocity at frame " + frame, point[2], fling.getVelocity(), 0.01f);
+        }
+    }
+
+    @Test
+    public void step_matchesClosedForm() {
+        final float friction = 1.2f;
+        final FlingSimulation fling = new FlingSimulation()
+                .setFriction(friction)
+                .setStartValue(0)
+                .setStartVelocity(-2000);
+
+        fling.step(250_000_000L);
+
+        final double decay = Math.exp(-4.2 * friction * 0.25);
+        assertEquals(-2000 * decay, fling.getVelocity(), 0.01);
+        assertEquals(-2000 / (4.2 * friction) * (1 - decay), fling.getValue(), 0.01);
+    }
+
+    @Test
+    public void step_isIndependentOfFrameRate() {
+        final FlingSimulation at60Hz = new FlingSimulation().setFriction(0.5f).setStartVelocity(2500);
+        final FlingSimulation at120Hz = new FlingSimulation().setFriction(0.5f).setStartVelocity(2500);
+
+        for (int i = 0; i < 30; i++) {
+            at60Hz.step(FRAME_NANOS);
+            at120Hz.step(FRAME_NANOS / 2);
+            at120Hz.step(FRAME_NANOS - FRAME_NANOS / 2);
+        }
+
+        assertEquals(at60Hz.getValue(), at120Hz.getValue(), 0.05f);
+        assertEquals(at60Hz.getVelocity(), at120Hz.getVelocity(), 0.05f);
+    }
+
+    @Test
+    public void step_clampsToBounds() {
+        final FlingSimulation fling = new FlingSimulation()
+                .setFriction(0.5f)
+                .setMinValue(0)
+                .setMaxValue(200)
+                .setStartValue(150)
+                .setStartVelocity(5000);
+
+        boolean finished = false;
+        int frames = 0;
+        while (!finished) {
+            finished = fling.step(FRAME_NANOS);
+            frames++;
+        }
+
+        assertEquals(200, fling.getValue(), 0);
+        assertTrue(frames < 10);
+    }
+
+    @Test
+    public void step_endsBelowVelocityThreshold() {
+        final FlingSimulation fling = new FlingSimulation().setFriction(0.5f).setStartVelocity(1000);
+
+        boolean finished = false;
+        while (!finished) {
+            finished = fling.step(FRAME_NANOS);
+        }
+
+        assertTrue(Math.abs(fling.getVelocity()) < FlingSimulation.DEFAULT_VELOCITY_THRESHOLD);
+    }
+
+    @Test
+    public void projectEndValue_matchesLongRunningFling() {
+        final FlingSimulation fling = new FlingSimulation().setFriction(0.5f).setStartValue(40).setStartVelocity(1800);
+        for (int i = 0; i < 1000; i++) {
+            fling.step(FRAME_NANOS);
+        }
+
+        assertEquals(fling.getValue(), FlingSimulation.projectEndValue(40, 1800, 0.5f), 0.01f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setFriction_nonPositive_throws() {
+        new FlingSimulation().setFriction(0);
+    }
+}
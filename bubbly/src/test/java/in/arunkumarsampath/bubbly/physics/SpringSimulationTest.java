@@ -0,0 +1,126 @@
+package in.arunkumarsampath.bubbly.physics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SpringSimulationTest {
+    private static final long FRAME_NANOS = 16_666_667L;
+
+    @Test
+    public void underDampedTrajectory_matchesGolden() {
+        final SpringSimulation spring = new SpringSimulation()
+                .setStiffness(200f)
+                .setDampingRatio(0.5f)
+                .setFinalPosition(0)
+                .setStartValue(500);
+
+        final float[][] golden = {
+                // frame, value
+                {10, 9.439447f},
+                {20, -49.984333f},
+                {30, 13.050875f},
+                {40, 1.0926249f},
+                {50, -1.5407654f},
+        };
+        int frame = 0;
+        for (float[] point : golden) {
+            while (frame < point[0]) {
+                spring.step(FRAME_NANOS);
+                frame++;
+            }
+            assertEquals("value at frame " + frame, point[1], spring.getValue(), 0.01f);
+        }
+    }
+
+    @Test
+    public void underDamped_overshootsAndSettles() {
+        final SpringSimulation spring = new SpringSimulation()
+                .setStiffness(200f)
+                .setDampingRatio(0.5f)
+                .setFinalPosition(100)
+                .setStartValue(0);
+
+        float max = 0;
+        final int frames = runToEnd(spring);
+        // Run again tracking the peak.
+        spring.setStartValue(0).setStartVelocity(0);
+        for (int i = 0; i < frames; i++) {
+            spring.step(FRAME_NANOS);
+            max = Math.max(max, spring.getValue());
+        }
+
+        assertTrue(max > 100);
+        assertEquals(100, spring.getValue(), 0);
+        assertEquals(0, spring.getVelocity(), 0);
+    }
+
+    @Test
+    public void criticallyDamped_neverOvershoots() {
+        final SpringSimulation spring = new SpringSimulation()
+                .setStiffness(1500f)
+                .setDampingRatio(1f)
+                .setFinalPosition(100)
+                .setStartValue(0);
+
+        boolean finished = false;
+        while (!finished) {
+            finished = spring.step(FRAME_NANOS);
+            assertTrue(spring.getValue() <= 100);
+        }
+    }
+
+    @Test
+    public void overDamped_neverOvershoots() {
+        final SpringSimulation spring = new SpringSimulation()
+                .setStiffness(200f)
+                .setDampingRatio(2f)
+                .setFinalPosition(-50)
+                .setStartValue(300);
+
+        boolean finished = false;
+        while (!finished) {
+            finished = spring.step(FRAME_NANOS);
+            assertTrue(spring.getValue() >= -50);
+        }
+    }
+
+    @Test
+    public void step_isIndependentOfFrameRate() {
+        final SpringSimulation at60Hz = new SpringSimulation().setFinalPosition(0).setStartValue(400).setStartVelocity(-1000);
+        final SpringSimulation at120Hz = new SpringSimulation().setFinalPosition(0).setStartValue(400).setStartVelocity(-1000);
+
+        for (int i = 0; i < 8; i++) {
+            at60Hz.step(FRAME_NANOS);
+            at120Hz.step(FRAME_NANOS / 2);
+            at120Hz.step(FRAME_NANOS - FRAME_NANOS / 2);
+        }
+
+        assertEquals(at60Hz.getValue(), at120Hz.getValue(), 0.05f);
+        assertEquals(at60Hz.getVelocity(), at120Hz.getVelocity(), 0.5f);
+    }
+
+    @Test
+    public void startVelocity_isHonoured() {
+        final SpringSimulation spring = new SpringSimulation().setFinalPosition(0).setStartValue(0).setStartVelocity(2000);
+        spring.step(FRAME_NANOS);
+
+        assertTrue(spring.getValue() > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setStiffness_nonPositive_throws() {
+        new SpringSimulation().setStiffness(0);
+    }
+
+    private static int runToEnd(SpringSimulation spring) {
+        int frames = 0;
+        boolean finished = false;
+        while (!finished) {
+            finished = spring.step(FRAME_NANOS);
+            frames++;
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,80 @@
+package in.arunkumarsampath.bubbly.util;
+
+import android.app.Application;
+import android.support.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(qualifiers = "w360dp-h640dp-port-xxhdpi")
+public class DisplayMetricsCacheTest {
+    private Application application;
+    private DisplayMetricsCache cache;
+    private int changes;
+    private final DisplayMetricsCache.Listener listener = new DisplayMetricsCache.Listener() {
+        @Override
+        public void onDisplayMetricsChanged(@NonNull DisplayMetricsCache cache) {
+            changes++;
+        }
+    };
+
+    @Before
+    public void setUp() {
+        DisplayMetricsCache.resetInstance();
+        application = RuntimeEnvironment.application;
+        cache = DisplayMetricsCache.getInstance(application);
+        cache.addListener(listener);
+    }
+
+    @After
+    public void tearDown() {
+        cache.removeListener(listener);
+        application.unregisterComponentCallbacks(cache);
+        DisplayMetricsCache.resetInstance();
+    }
+
+    @Test
+    public void getInstance_isShared() {
+        assertSame(cache, DisplayMetricsCache.getInstance());
+        assertSame(cache, DisplayMetricsCache.getInstance(application));
+    }
+
+    @Test
+    public void readsApplicationMetrics() {
+        assertEquals(3f, cache.getDensity(), 0);
+        assertEquals(360, cache.getScreenWidthDp());
+        assertEquals(1080, cache.getWidthPixels());
+        assertEquals(48, cache.dpToPx(16));
+        assertEquals(48, Utils.dpToPx(16));
+    }
+
+    @Test
+    public void rotation_refreshesAndNotifiesOnce() {
+        final int portraitWidth = cache.getWidthPixels();
+        final int portraitHeight = cache.getHeightPixels();
+
+        RuntimeEnvironment.setQualifiers("w640dp-h360dp-land");
+        cache.onConfigurationChanged(application.getResources().getConfiguration());
+
+        assertEquals(1, changes);
+        assertEquals(640, cache.getScreenWidthDp());
+        assertEquals(portraitHeight, cache.getWidthPixels());
+        assertEquals(portraitWidth, cache.getHeightPixels());
+    }
+
+    @Test
+    public void unchangedConfiguration_doesNotNotify() {
+        cache.onConfigurationChanged(application.getResources().getConfiguration());
+
+        assertEquals(0, changes);
+    }
+}
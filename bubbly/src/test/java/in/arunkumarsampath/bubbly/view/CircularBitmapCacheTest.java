@@ -0,0 +1,50 @@
+package in.arunkumarsampath.bubbly.view;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+public class CircularBitmapCacheTest {
+    /**
+     * Bytes held by a 10x10 ARGB_8888 bitmap.
+     */
+    private static final int BITMAP_BYTES = 10 * 10 * 4;
+
+    @Test
+    public void put_overByteBudget_evictsLeastRecentlyUsedFirst() {
+        final CircularBitmapCache cache = new CircularBitmapCache(2 * BITMAP_BYTES);
+        final CircularBitmapCache.Key a = new CircularBitmapCache.Key("content://a", 10);
+        final CircularBitmapCache.Key b = new CircularBitmapCache.Key("content://b", 10);
+        final CircularBitmapCache.Key c = new CircularBitmapCache.Key("content://c", 10);
+        cache.put(a, createBitmap());
+        cache.put(b, createBitmap());
+        cache.get(a);
+        cache.put(c, createBitmap());
+
+        assertNull(cache.get(b));
+        assertNotNull(cache.get(a));
+        assertNotNull(cache.get(c));
+        assertEquals(2 * BITMAP_BYTES, cache.size());
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    public void key_distinguishesSizes() {
+        final CircularBitmapCache cache = new CircularBitmapCache(4 * BITMAP_BYTES);
+        cache.put(new CircularBitmapCache.Key("content://a", 10), createBitmap());
+
+        assertNotNull(cache.get(new CircularBitmapCache.Key("content://a", 10)));
+        assertNull(cache.get(new CircularBitmapCache.Key("content://a", 20)));
+    }
+
+    private static Bitmap createBitmap() {
+        return Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+    }
+}
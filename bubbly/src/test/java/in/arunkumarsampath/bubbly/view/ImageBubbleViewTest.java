@@ -0,0 +1,61 @@
+package in.arunkumarsampath.bubbly.view;
+
+import android.graphics.Bitmap;
+import android.net.Uri;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class ImageBubbleViewTest {
+    private static final Uri IMAGE = Uri.parse("content://bubbly.test/avatar");
+
+    private CircularBitmapCache cache;
+    private ImageBubbleView view;
+
+    @Before
+    public void setUp() {
+        cache = new CircularBitmapCache(1024 * 1024);
+        view = new ImageBubbleView(RuntimeEnvironment.application);
+        view.setBitmapCache(cache);
+        view.onAttachedToWindow();
+        // Crops images to 100px.
+        view.layout(0, 0, 120, 120);
+    }
+
+    @Test
+    public void detach_dropsPendingRequest() {
+        view.setImageUri(IMAGE);
+        assertTrue(view.hasPendingRequest());
+
+        view.onDetachedFromWindow();
+
+        assertFalse(view.hasPendingRequest());
+    }
+
+    @Test
+    public void reattach_requestsImageAgain() {
+        view.setImageUri(IMAGE);
+        view.onDetachedFromWindow();
+
+        view.onAttachedToWindow();
+
+        assertTrue(view.hasPendingRequest());
+    }
+
+    @Test
+    public void cachedImage_isShownWithoutRequest() {
+        cache.put(new CircularBitmapCache.Key(IMAGE.toString(), 100),
+                Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888));
+
+        view.setImageUri(IMAGE);
+
+        assertFalse(view.hasPendingRequest());
+    }
+}